@@ -1,5 +1,7 @@
 package data_structure;
 
+import the_sorting.StringSort;
+
 /**
  * 无序数组
  * 优点： 插入快，如果知道下标，可以很快的存取
@@ -64,6 +66,15 @@ public class Array {
     }
 
 
+    /**
+     * 按字典序排序，结果与String.compareTo相同
+     * 使用按字符的MSD基数排序，共同前缀只看一遍，详见StringSort
+     */
+    public void sort(){
+        StringSort.msdSort(strArray, 0, lenght);
+    }
+
+
     /**
      * 列出所有元素
      */
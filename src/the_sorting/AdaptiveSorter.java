@@ -0,0 +1,274 @@
+package the_sorting;
+
+/**
+ * 自适应排序
+ * 先扫描一遍输入得到规模、值域和有序程度，再抽样估计重复元素的比例，然后选择算法：
+ * 1. 规模很小：插入排序
+ * 2. 已经有序或严格逆序：直接返回或翻转
+ * 3. 值域不超过元素个数：计数排序
+ * 4. 有序段很少：自然归并排序
+ * 5. 重复元素很多（不同取值很少）：三路划分的快速排序
+ * 6. 规模较大：基数排序，规模非常大时使用多线程基数排序；大到辅助数组放不下时使用并行原地采样排序
+ * 7. 其余：内省排序
+ * long[]和double[]按同样的顺序判断，用LongSorts、DoubleSorts中的实现：
+ * 没有计数排序和三路划分，有序段很少时用跳过有序两半的归并排序，规模很大时用原地的内省排序，
+ * double[]按Double.compare的顺序判断是否有序，-0.0在0.0前面，NaN在最后，多线程时用并行桶排序
+ */
+public class AdaptiveSorter implements Sorter {
+
+    static final AdaptiveSorter INSTANCE = new AdaptiveSorter();
+
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    private static final int RADIX_THRESHOLD = 256;
+
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    /**
+     * 超过这个规模时基数排序的辅助数组要占用256MB以上，改用原地的采样排序
+     */
+    private static final int IN_PLACE_THRESHOLD = 1 << 26;
+
+    /**
+     * 有序段个数不超过n / RUN_FACTOR时视为基本有序
+     */
+    private static final int RUN_FACTOR = 64;
+
+    private static final int SAMPLE_SIZE = 256;
+
+    public static void main(String[] args) {
+        int[] array = {38, 29, 14, 35, 22, 61, 35, 59, 36, 2, -1, -12};
+        Sorter.adaptive().sort(array);
+        for (int a : array){
+            System.out.println(a);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "ADAPTIVE";
+    }
+
+    /**
+     * 大数组可能选中并行的算法
+     */
+    @Override
+    public boolean parallel() {
+        return true;
+    }
+
+    @Override
+    public void sort(int[] array, int from, int to) {
+        choose(array, from, to).sort(array, from, to);
+    }
+
+    /**
+     * 根据输入的特征选择算法，有序或逆序的输入在这里直接处理完并返回空操作
+     * @param array
+     * @param from
+     * @param to
+     * @return
+     */
+    Sorter choose(int[] array, int from, int to){
+        int n = to - from;
+        if (n <= INSERTION_SORT_THRESHOLD){
+            return SortAlgorithm.INSERT;
+        }
+        int min = array[from], max = array[from];
+        int descents = 0, ascents = 0;
+        for (int i = from + 1; i < to; i++){
+            int v = array[i];
+            if (v < min){
+                min = v;
+            } else if (v > max){
+                max = v;
+            }
+            if (array[i - 1] > v){
+                descents++;
+            } else if (array[i - 1] < v){
+                ascents++;
+            }
+        }
+        if (descents == 0){
+            return NONE;
+        }
+        if (ascents == 0 && descents == n - 1){
+            reverse(array, from, to);
+            return NONE;
+        }
+        long range = (long) max - min + 1;
+        if (range <= n){
+            return SortAlgorithm.COUNT;
+        }
+        if (descents < n / RUN_FACTOR){
+            return SortAlgorithm.NATURAL_MERGE;
+        }
+        if (distinctInSample(array, from, to) < SAMPLE_SIZE / 4){
+            return SortAlgorithm.THREE_WAY;
+        }
+        if (n >= IN_PLACE_THRESHOLD){
+            return SortAlgorithm.SAMPLE;
+        }
+        if (n >= PARALLEL_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1){
+            return SortAlgorithm.PARALLEL_RADIX;
+        }
+        if (n >= RADIX_THRESHOLD){
+            return SortAlgorithm.RADIX;
+        }
+        return SortAlgorithm.INTRO;
+    }
+
+    @Override
+    public void sort(long[] array, int from, int to) {
+        choose(array, from, to).sort(array, from, to);
+    }
+
+    @Override
+    public void sort(double[] array, int from, int to) {
+        choose(array, from, to).sort(array, from, to);
+    }
+
+    /**
+     * long[]版本的选择
+     */
+    Sorter choose(long[] array, int from, int to){
+        int n = to - from;
+        if (n <= INSERTION_SORT_THRESHOLD){
+            return SortAlgorithm.INTRO;
+        }
+        int descents = 0, ascents = 0;
+        for (int i = from + 1; i < to; i++){
+            if (array[i - 1] > array[i]){
+                descents++;
+            } else if (array[i - 1] < array[i]){
+                ascents++;
+            }
+        }
+        if (descents == 0){
+            return NONE;
+        }
+        if (ascents == 0 && descents == n - 1){
+            reverse(array, from, to);
+            return NONE;
+        }
+        if (descents < n / RUN_FACTOR){
+            return SortAlgorithm.MERGE;
+        }
+        if (n >= IN_PLACE_THRESHOLD){
+            return SortAlgorithm.INTRO;
+        }
+        if (n >= PARALLEL_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1){
+            return SortAlgorithm.PARALLEL_RADIX;
+        }
+        if (n >= RADIX_THRESHOLD){
+            return SortAlgorithm.RADIX;
+        }
+        return SortAlgorithm.INTRO;
+    }
+
+    /**
+     * double[]版本的选择
+     */
+    Sorter choose(double[] array, int from, int to){
+        int n = to - from;
+        if (n <= INSERTION_SORT_THRESHOLD){
+            return SortAlgorithm.INTRO;
+        }
+        int descents = 0, ascents = 0;
+        for (int i = from + 1; i < to; i++){
+            int c = Double.compare(array[i - 1], array[i]);
+            if (c > 0){
+                descents++;
+            } else if (c < 0){
+                ascents++;
+            }
+        }
+        if (descents == 0){
+            return NONE;
+        }
+        if (ascents == 0 && descents == n - 1){
+            reverse(array, from, to);
+            return NONE;
+        }
+        if (descents < n / RUN_FACTOR){
+            return SortAlgorithm.MERGE;
+        }
+        if (n >= IN_PLACE_THRESHOLD){
+            return SortAlgorithm.INTRO;
+        }
+        if (n >= PARALLEL_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1){
+            return SortAlgorithm.BARREL;
+        }
+        if (n >= RADIX_THRESHOLD){
+            return SortAlgorithm.RADIX;
+        }
+        return SortAlgorithm.INTRO;
+    }
+
+    /**
+     * 等间隔抽样，排序后统计不同值的个数
+     */
+    static int distinctInSample(int[] array, int from, int to){
+        int n = to - from;
+        int size = Math.min(SAMPLE_SIZE, n);
+        int[] sample = new int[size];
+        for (int i = 0; i < size; i++){
+            sample[i] = array[from + (int) ((long) n * i / size)];
+        }
+        Insert.insertionSort(sample, 0, size - 1);
+        int distinct = size > 0 ? 1 : 0;
+        for (int i = 1; i < size; i++){
+            if (sample[i] != sample[i - 1]){
+                distinct++;
+            }
+        }
+        return distinct;
+    }
+
+    private static void reverse(int[] array, int from, int to){
+        for (int i = from, j = to - 1; i < j; i++, j--){
+            int temp = array[i];
+            array[i] = array[j];
+            array[j] = temp;
+        }
+    }
+
+    private static void reverse(long[] array, int from, int to){
+        for (int i = from, j = to - 1; i < j; i++, j--){
+            long temp = array[i];
+            array[i] = array[j];
+            array[j] = temp;
+        }
+    }
+
+    private static void reverse(double[] array, int from, int to){
+        for (int i = from, j = to - 1; i < j; i++, j--){
+            double temp = array[i];
+            array[i] = array[j];
+            array[j] = temp;
+        }
+    }
+
+    /**
+     * 输入已经处理完毕时返回的空操作
+     */
+    private static final Sorter NONE = new Sorter() {
+        @Override
+        public String name() {
+            return "NONE";
+        }
+
+        @Override
+        public void sort(int[] array, int from, int to) {
+        }
+
+        @Override
+        public void sort(long[] array, int from, int to) {
+        }
+
+        @Override
+        public void sort(double[] array, int from, int to) {
+        }
+    };
+
+}
@@ -0,0 +1,558 @@
+package the_sorting;
+
+import java.util.Arrays;
+
+/**
+ * 索引排序（argsort）：返回排序后的下标排列，原数组保持不动
+ * perm[i]是排好序后第i个元素在原数组中的下标，即 sorted[i] = array[perm[i]]
+ * 得到排列后可以用apply把同一个排列原地应用到多个平行的列上
+ */
+public class ArgSort {
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    public static void main(String[] args) {
+        int[] age = {38, 29, 14, 35, 22, 61, 35, 59, 36, 2};
+        String[] name = {"a", "b", "c", "d", "e", "f", "g", "h", "i", "j"};
+        int[] perm = radix(age);
+        apply(perm, age);
+        apply(perm, name);
+        for (int i = 0; i < age.length; i++){
+            System.out.println(name[i] + "\t" + age[i]);
+        }
+    }
+
+    //================稳定的基数排序版本=========================
+
+    /**
+     * 稳定的按字节LSD基数排序，键相等时保持原来的先后顺序
+     * @param keys
+     * @return
+     */
+    public static int[] radix(int[] keys){
+        int n = keys.length;
+        int[] k = new int[n];
+        for (int i = 0; i < n; i++){
+            k[i] = keys[i] ^ Integer.MIN_VALUE;
+        }
+        return radixUnsigned(k);
+    }
+
+    public static int[] radix(long[] keys){
+        int n = keys.length;
+        long[] k = new long[n];
+        for (int i = 0; i < n; i++){
+            k[i] = keys[i] ^ Long.MIN_VALUE;
+        }
+        return radixUnsigned(k);
+    }
+
+    /**
+     * 浮点数按IEEE全序：-0.0排在0.0前面，NaN排在最后
+     * @param keys
+     * @return
+     */
+    public static int[] radix(double[] keys){
+        int n = keys.length;
+        long[] k = new long[n];
+        for (int i = 0; i < n; i++){
+            k[i] = DoubleSorts.key(keys[i]);
+        }
+        return radixUnsigned(k);
+    }
+
+    /**
+     * 键按无符号比较，下标随键一起分配，键数组会被修改
+     */
+    static int[] radixUnsigned(int[] k){
+        int n = k.length;
+        int[] index = identity(n);
+        int[] count = new int[4 * 256];
+        for (int v : k){
+            for (int b = 0; b < 4; b++){
+                count[b * 256 + ((v >>> (b * 8)) & 0xFF)]++;
+            }
+        }
+        int[] keySrc = k, keyDst = new int[n];
+        int[] indexSrc = index, indexDst = new int[n];
+        for (int b = 0; b < 4 && n > 0; b++){
+            int base = b * 256, shift = b * 8;
+            if (count[base + ((keySrc[0] >>> shift) & 0xFF)] == n){
+                continue;
+            }
+            toOffsets(count, base);
+            for (int i = 0; i < n; i++){
+                int v = keySrc[i];
+                int pos = count[base + ((v >>> shift) & 0xFF)]++;
+                keyDst[pos] = v;
+                indexDst[pos] = indexSrc[i];
+            }
+            int[] t = keySrc;
+            keySrc = keyDst;
+            keyDst = t;
+            t = indexSrc;
+            indexSrc = indexDst;
+            indexDst = t;
+        }
+        return indexSrc;
+    }
+
+    static int[] radixUnsigned(long[] k){
+        int n = k.length;
+        int[] index = identity(n);
+        int[] count = new int[8 * 256];
+        for (long v : k){
+            for (int b = 0; b < 8; b++){
+                count[b * 256 + (int) ((v >>> (b * 8)) & 0xFF)]++;
+            }
+        }
+        long[] keySrc = k, keyDst = new long[n];
+        int[] indexSrc = index, indexDst = new int[n];
+        for (int b = 0; b < 8 && n > 0; b++){
+            int base = b * 256, shift = b * 8;
+            if (count[base + (int) ((keySrc[0] >>> shift) & 0xFF)] == n){
+                continue;
+            }
+            toOffsets(count, base);
+            for (int i = 0; i < n; i++){
+                long v = keySrc[i];
+                int pos = count[base + (int) ((v >>> shift) & 0xFF)]++;
+                keyDst[pos] = v;
+                indexDst[pos] = indexSrc[i];
+            }
+            long[] t = keySrc;
+            keySrc = keyDst;
+            keyDst = t;
+            int[] ti = indexSrc;
+            indexSrc = indexDst;
+            indexDst = ti;
+        }
+        return indexSrc;
+    }
+
+    /**
+     * 把count[base, base + 256)中的频率转换为起始位置
+     */
+    private static void toOffsets(int[] count, int base){
+        int sum = 0;
+        for (int i = base; i < base + 256; i++){
+            int c = count[i];
+            count[i] = sum;
+            sum += c;
+        }
+    }
+
+    //================内省排序版本=========================
+
+    /**
+     * 内省排序版本，不需要基数排序的辅助数组
+     * 键相等时按原下标排序，所以结果与稳定排序相同
+     * @param keys
+     * @return
+     */
+    public static int[] intro(int[] keys){
+        int n = keys.length;
+        int[] k = keys.clone();
+        int[] index = identity(n);
+        if (n > 1){
+            introSort(k, index, 0, n - 1, 2 * log2(n));
+        }
+        return index;
+    }
+
+    public static int[] intro(long[] keys){
+        return introSigned(keys.clone());
+    }
+
+    /**
+     * 浮点数按IEEE全序：-0.0排在0.0前面，NaN排在最后
+     * @param keys
+     * @return
+     */
+    public static int[] intro(double[] keys){
+        int n = keys.length;
+        long[] k = new long[n];
+        for (int i = 0; i < n; i++){
+            //转换为按有符号比较的键
+            k[i] = DoubleSorts.key(keys[i]) ^ Long.MIN_VALUE;
+        }
+        return introSigned(k);
+    }
+
+    private static int[] introSigned(long[] k){
+        int n = k.length;
+        int[] index = identity(n);
+        if (n > 1){
+            introSort(k, index, 0, n - 1, 2 * log2(n));
+        }
+        return index;
+    }
+
+    /**
+     * 对(键, 下标)对做内省排序，键和下标一起交换
+     */
+    private static void introSort(int[] k, int[] index, int start, int end, int depthLimit){
+        while (end - start + 1 > INSERTION_SORT_THRESHOLD){
+            if (depthLimit == 0){
+                heapSort(k, index, start, end);
+                return;
+            }
+            depthLimit--;
+            //三数取中，基准放到start
+            int mid = (start + end) >>> 1;
+            if (less(k, index, mid, start)){
+                swap(k, index, mid, start);
+            }
+            if (less(k, index, end, start)){
+                swap(k, index, end, start);
+            }
+            if (less(k, index, end, mid)){
+                swap(k, index, end, mid);
+            }
+            swap(k, index, start, mid);
+
+            int left = start, right = end + 1;
+            while (true){
+                do {
+                    left++;
+                } while (left < end && less(k, index, left, start));
+                do {
+                    right--;
+                } while (less(k, index, start, right));
+                if (left >= right){
+                    break;
+                }
+                swap(k, index, left, right);
+            }
+            swap(k, index, start, right);
+            if (right - start < end - right){
+                introSort(k, index, start, right - 1, depthLimit);
+                start = right + 1;
+            } else {
+                introSort(k, index, right + 1, end, depthLimit);
+                end = right - 1;
+            }
+        }
+        for (int i = start + 1; i <= end; i++){
+            for (int j = i; j > start && less(k, index, j, j - 1); j--){
+                swap(k, index, j, j - 1);
+            }
+        }
+    }
+
+    private static void heapSort(int[] k, int[] index, int start, int end){
+        int len = end - start + 1;
+        for (int i = len / 2 - 1; i >= 0; i--){
+            siftDown(k, index, start, len, i);
+        }
+        for (int i = len - 1; i >= 1; i--){
+            swap(k, index, start, start + i);
+            siftDown(k, index, start, i, 0);
+        }
+    }
+
+    private static void siftDown(int[] k, int[] index, int offset, int len, int i){
+        int child = 2 * i + 1;
+        while (child < len){
+            if (child + 1 < len && less(k, index, offset + child, offset + child + 1)){
+                child++;
+            }
+            if (!less(k, index, offset + i, offset + child)){
+                return;
+            }
+            swap(k, index, offset + i, offset + child);
+            i = child;
+            child = 2 * i + 1;
+        }
+    }
+
+    private static boolean less(int[] k, int[] index, int a, int b){
+        return k[a] < k[b] || (k[a] == k[b] && index[a] < index[b]);
+    }
+
+    private static void swap(int[] k, int[] index, int a, int b){
+        int t = k[a];
+        k[a] = k[b];
+        k[b] = t;
+        t = index[a];
+        index[a] = index[b];
+        index[b] = t;
+    }
+
+    private static void introSort(long[] k, int[] index, int start, int end, int depthLimit){
+        while (end - start + 1 > INSERTION_SORT_THRESHOLD){
+            if (depthLimit == 0){
+                heapSort(k, index, start, end);
+                return;
+            }
+            depthLimit--;
+            int mid = (start + end) >>> 1;
+            if (less(k, index, mid, start)){
+                swap(k, index, mid, start);
+            }
+            if (less(k, index, end, start)){
+                swap(k, index, end, start);
+            }
+            if (less(k, index, end, mid)){
+                swap(k, index, end, mid);
+            }
+            swap(k, index, start, mid);
+
+            int left = start, right = end + 1;
+            while (true){
+                do {
+                    left++;
+                } while (left < end && less(k, index, left, start));
+                do {
+                    right--;
+                } while (less(k, index, start, right));
+                if (left >= right){
+                    break;
+                }
+                swap(k, index, left, right);
+            }
+            swap(k, index, start, right);
+            if (right - start < end - right){
+                introSort(k, index, start, right - 1, depthLimit);
+                start = right + 1;
+            } else {
+                introSort(k, index, right + 1, end, depthLimit);
+                end = right - 1;
+            }
+        }
+        for (int i = start + 1; i <= end; i++){
+            for (int j = i; j > start && less(k, index, j, j - 1); j--){
+                swap(k, index, j, j - 1);
+            }
+        }
+    }
+
+    private static void heapSort(long[] k, int[] index, int start, int end){
+        int len = end - start + 1;
+        for (int i = len / 2 - 1; i >= 0; i--){
+            siftDown(k, index, start, len, i);
+        }
+        for (int i = len - 1; i >= 1; i--){
+            swap(k, index, start, start + i);
+            siftDown(k, index, start, i, 0);
+        }
+    }
+
+    private static void siftDown(long[] k, int[] index, int offset, int len, int i){
+        int child = 2 * i + 1;
+        while (child < len){
+            if (child + 1 < len && less(k, index, offset + child, offset + child + 1)){
+                child++;
+            }
+            if (!less(k, index, offset + i, offset + child)){
+                return;
+            }
+            swap(k, index, offset + i, offset + child);
+            i = child;
+            child = 2 * i + 1;
+        }
+    }
+
+    private static boolean less(long[] k, int[] index, int a, int b){
+        return k[a] < k[b] || (k[a] == k[b] && index[a] < index[b]);
+    }
+
+    private static void swap(long[] k, int[] index, int a, int b){
+        long t = k[a];
+        k[a] = k[b];
+        k[b] = t;
+        int ti = index[a];
+        index[a] = index[b];
+        index[b] = ti;
+    }
+
+    //================把排列原地应用到多个列=========================
+
+    /**
+     * 把同一个排列依次原地应用到多个平行的int[]列上，执行后 column[i] = 原column[perm[i]]
+     * 按置换的环移动元素，用一个位图记录已经放好的位置，每列只需要一个临时变量，不复制整列
+     * 移动任何元素之前先检查每一列的长度都等于perm.length、perm是[0, n)的一个排列，不满足时抛出IllegalArgumentException，所有列都保持不变
+     * 不同类型的列分别调用对应的重载，例如apply(perm, ages)之后apply(perm, names)
+     * @param perm
+     * @param columns
+     */
+    public static void apply(int[] perm, int[]... columns){
+        for (int[] column : columns){
+            checkLength(perm, column.length);
+        }
+        long[] done = checkPermutation(perm);
+        for (int[] column : columns){
+            Arrays.fill(done, 0);
+            apply(perm, column, done);
+        }
+    }
+
+    /**
+     * long[]列的版本，见apply(int[], int[]...)
+     */
+    public static void apply(int[] perm, long[]... columns){
+        for (long[] column : columns){
+            checkLength(perm, column.length);
+        }
+        long[] done = checkPermutation(perm);
+        for (long[] column : columns){
+            Arrays.fill(done, 0);
+            apply(perm, column, done);
+        }
+    }
+
+    /**
+     * double[]列的版本，见apply(int[], int[]...)
+     */
+    public static void apply(int[] perm, double[]... columns){
+        for (double[] column : columns){
+            checkLength(perm, column.length);
+        }
+        long[] done = checkPermutation(perm);
+        for (double[] column : columns){
+            Arrays.fill(done, 0);
+            apply(perm, column, done);
+        }
+    }
+
+    /**
+     * 对象数组列的版本，见apply(int[], int[]...)
+     * 参数类型是Object[]...，只传一个String[]时作为一列，不会被展开成多列
+     */
+    public static void apply(int[] perm, Object[]... columns){
+        for (Object[] column : columns){
+            checkLength(perm, column.length);
+        }
+        long[] done = checkPermutation(perm);
+        for (Object[] column : columns){
+            Arrays.fill(done, 0);
+            apply(perm, column, done);
+        }
+    }
+
+    private static void apply(int[] perm, int[] column, long[] done){
+        for (int start = 0; start < perm.length; start++){
+            if (isSet(done, start)){
+                continue;
+            }
+            int temp = column[start];
+            int i = start;
+            while (true){
+                set(done, i);
+                int next = perm[i];
+                if (next == start){
+                    column[i] = temp;
+                    break;
+                }
+                column[i] = column[next];
+                i = next;
+            }
+        }
+    }
+
+    private static void apply(int[] perm, long[] column, long[] done){
+        for (int start = 0; start < perm.length; start++){
+            if (isSet(done, start)){
+                continue;
+            }
+            long temp = column[start];
+            int i = start;
+            while (true){
+                set(done, i);
+                int next = perm[i];
+                if (next == start){
+                    column[i] = temp;
+                    break;
+                }
+                column[i] = column[next];
+                i = next;
+            }
+        }
+    }
+
+    private static void apply(int[] perm, double[] column, long[] done){
+        for (int start = 0; start < perm.length; start++){
+            if (isSet(done, start)){
+                continue;
+            }
+            double temp = column[start];
+            int i = start;
+            while (true){
+                set(done, i);
+                int next = perm[i];
+                if (next == start){
+                    column[i] = temp;
+                    break;
+                }
+                column[i] = column[next];
+                i = next;
+            }
+        }
+    }
+
+    private static void apply(int[] perm, Object[] column, long[] done){
+        for (int start = 0; start < perm.length; start++){
+            if (isSet(done, start)){
+                continue;
+            }
+            Object temp = column[start];
+            int i = start;
+            while (true){
+                set(done, i);
+                int next = perm[i];
+                if (next == start){
+                    column[i] = temp;
+                    break;
+                }
+                column[i] = column[next];
+                i = next;
+            }
+        }
+    }
+
+    private static void checkLength(int[] perm, int length){
+        if (perm.length != length){
+            throw new IllegalArgumentException("permutation length " + perm.length + " != column length " + length);
+        }
+    }
+
+    /**
+     * perm中每个下标都在[0, n)中并且只出现一次，否则环不会回到起点
+     * @return 检查用的位图，各列应用前清零后复用
+     */
+    private static long[] checkPermutation(int[] perm){
+        long[] seen = new long[(perm.length + 63) >>> 6];
+        for (int i = 0; i < perm.length; i++){
+            int p = perm[i];
+            if (p < 0 || p >= perm.length){
+                throw new IllegalArgumentException("perm[" + i + "] = " + p + " out of range [0, " + perm.length + ")");
+            }
+            if (isSet(seen, p)){
+                throw new IllegalArgumentException("perm[" + i + "] = " + p + " is repeated, not a permutation");
+            }
+            set(seen, p);
+        }
+        return seen;
+    }
+
+    private static boolean isSet(long[] bits, int i){
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private static void set(long[] bits, int i){
+        bits[i >>> 6] |= 1L << i;
+    }
+
+    private static int[] identity(int n){
+        int[] index = new int[n];
+        for (int i = 0; i < n; i++){
+            index[i] = i;
+        }
+        return index;
+    }
+
+    private static int log2(int n){
+        return 31 - Integer.numberOfLeadingZeros(n);
+    }
+
+}
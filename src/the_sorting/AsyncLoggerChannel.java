@@ -0,0 +1,190 @@
+package the_sorting;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * 把写入的字节交给后台线程，按行写成log4j的INFO日志
+ * lib中只有log4j-api，没有log4j-core的AsyncAppender和Disruptor，这里用一个有界队列和一个守护线程实现同样的效果：
+ * 1. write()只复制一份字节放入队列，不等待日志输出，队列满时阻塞写入方，内存占用有上限
+ * 2. 后台线程按换行符切分，每行调用一次logger.info，INFO没有开启时整块丢弃，不切分也不创建String
+ * 3. close()等待队列中的内容全部写完
+ * 4. logger抛出异常时后台线程记下异常并关闭通道，之后只取出队列中的内容丢弃，不再写日志；
+ *    write()和close()把记下的异常包装成IOException抛出，不会阻塞在已经没人写日志的队列上
+ */
+public class AsyncLoggerChannel implements WritableByteChannel {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * 队列中的结束标记
+     */
+    private static final byte[] END = new byte[0];
+
+    private final Logger logger;
+    private final BlockingQueue<byte[]> queue;
+    private final Thread worker;
+    private volatile boolean open = true;
+    private volatile boolean closed;
+
+    /**
+     * 后台线程写日志时抛出的异常
+     */
+    private volatile Throwable failure;
+
+    /**
+     * 上一块末尾没有换行的部分，只在后台线程中使用
+     */
+    private byte[] pending = END;
+
+    public static void main(String[] args) throws IOException {
+        Logger logger = LogManager.getLogger(AsyncLoggerChannel.class);
+        int[] array = {38, 29, 14, 35, 22, 61, 35, 59, 36, 2, -1, -12};
+        SortAlgorithm.INTRO.sort(array);
+        try (IntSink sink = new IntSink(new AsyncLoggerChannel(logger))){
+            sink.writeAll(array, 0, array.length);
+        }
+    }
+
+    public AsyncLoggerChannel(Logger logger){
+        this(logger, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param logger
+     * @param capacity 队列中最多等待的块数
+     */
+    public AsyncLoggerChannel(Logger logger, int capacity){
+        this.logger = logger;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.worker = new Thread(this::drain, "the_sorting-async-log");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        checkFailure();
+        if (!open){
+            throw new ClosedChannelException();
+        }
+        int n = src.remaining();
+        byte[] chunk = new byte[n];
+        src.get(chunk);
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            close();
+            throw new ClosedByInterruptException();
+        }
+        return n;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * 停止接收新的内容，等待后台线程写完已经入队的部分
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed){
+            checkFailure();
+            return;
+        }
+        closed = true;
+        open = false;
+        boolean interrupted = false;
+        while (true){
+            try {
+                queue.put(END);
+                worker.join();
+                break;
+            } catch (InterruptedException e){
+                interrupted = true;
+            }
+        }
+        if (interrupted){
+            Thread.currentThread().interrupt();
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable e = failure;
+        if (e != null){
+            throw new IOException("logger failed", e);
+        }
+    }
+
+    private void drain(){
+        try {
+            byte[] chunk;
+            while ((chunk = queue.take()) != END){
+                //出错后继续取出并丢弃，写入方和close()不会阻塞在队列上
+                if (failure != null){
+                    continue;
+                }
+                try {
+                    if (logger.isInfoEnabled()){
+                        log(chunk);
+                    }
+                } catch (Throwable e){
+                    fail(e);
+                }
+            }
+            if (failure == null && pending.length > 0){
+                try {
+                    logger.info(new String(pending, StandardCharsets.US_ASCII));
+                } catch (Throwable e){
+                    fail(e);
+                }
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void fail(Throwable e){
+        failure = e;
+        open = false;
+        pending = END;
+    }
+
+    private void log(byte[] chunk){
+        int start = 0;
+        for (int i = 0; i < chunk.length; i++){
+            if (chunk[i] != '\n'){
+                continue;
+            }
+            if (pending.length > 0){
+                byte[] line = Arrays.copyOf(pending, pending.length + i - start);
+                System.arraycopy(chunk, start, line, pending.length, i - start);
+                pending = END;
+                logger.info(new String(line, StandardCharsets.US_ASCII));
+            } else {
+                logger.info(new String(chunk, start, i - start, StandardCharsets.US_ASCII));
+            }
+            start = i + 1;
+        }
+        if (start < chunk.length){
+            byte[] rest = Arrays.copyOf(pending, pending.length + chunk.length - start);
+            System.arraycopy(chunk, start, rest, pending.length, chunk.length - start);
+            pending = rest;
+        }
+    }
+
+}
@@ -1,12 +1,30 @@
 package the_sorting;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * 桶排序
  */
 public class Barrel {
 
+    /**
+     * 每个桶的平均元素个数
+     */
+    private static final int AVERAGE_BUCKET_SIZE = 8;
+
+    /**
+     * 桶内元素不超过它时用插入排序
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    /**
+     * 一个并行任务至少负责的元素个数
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
 
     public static void main(String[] args) {
         int[] array = {38, 29, 14, 35, 22, 61, 35, 59, 36, 2};
@@ -22,51 +40,13 @@ public class Barrel {
     }
 
 
+    /**
+     * 桶排序，任意int取值都可以
+     * 原来的实现假定输入在0~99之间并用0表示空位，现在直接使用parallelBucketSort的计数、偏移、分配做法
+     * @param array
+     */
     public static void bucketSort(int[] array){
-        //分桶，这里采用映射函数f(x) = x / 10;
-        //输入数据为0~99之间的数字
-        int bucketCount = 10;
-        int[][] bucket = new int[bucketCount][array.length];
-        for (int i = 0; i < array.length; i++){
-            //这里使用f(x)
-            int quotient = array[i] / 10;
-            for (int j = 0; j < array.length; j++){
-                if (bucket[quotient][j] == 0){
-                    bucket[quotient][j] = array[i];
-                    break;
-                }
-            }
-        }
-        //小桶排序
-        for (int i = 0; i < bucket.length; i++){
-            for (int j = 0; j < bucket[i].length; i++){
-                if (bucket[i][j] == 0) {
-                    break;
-                }
-                int value = bucket[i][j];
-                int position = j;
-                while (position > 0 && bucket[i][position - 1] > value){
-                    bucket[i][position] = bucket[i][position -1];
-                    position --;
-                }
-                bucket[i][position] = value;
-            }
-        }
-        //输出
-        for (int i = 0, index = 0; i < bucket.length; i++){
-            for (int j = 0; j < bucket[i].length; j++){
-                if (bucket[i][j] != 0){
-                    array[index] = bucket[i][j];
-                    index++;
-                } else {
-                    break;
-                }
-            }
-        }
-
-        for (int a : array){
-            System.out.println(a);
-        }
+        parallelBucketSort(array);
     }
 
 
@@ -111,4 +91,238 @@ public class Barrel {
         }
         return resultArr;
     }
+
+
+    //================基于int[]/double[]的并行桶排序=========================
+
+    /**
+     * 并行桶排序，使用公共ForkJoinPool
+     * @param array
+     */
+    public static void parallelBucketSort(int[] array){
+        parallelBucketSort(array, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 并行桶排序
+     * 1. 按(x - min) >>> shift分桶，桶数约为n / 8
+     * 2. 先统计每个桶的元素个数，转换为偏移量后一次性分配到一个连续的辅助数组，不再使用ArrayList装箱
+     * 3. 各个桶在ForkJoinPool中并行排序并写回原数组
+     * @param array
+     * @param pool
+     */
+    public static void parallelBucketSort(int[] array, ForkJoinPool pool){
+        int n = array.length;
+        if (n <= INSERTION_SORT_THRESHOLD){
+            Insert.insertionSort(array, 0, n - 1);
+            return;
+        }
+        int max = array[0], min = array[0];
+        for (int v : array){
+            if (v > max){
+                max = v;
+            }
+            if (v < min){
+                min = v;
+            }
+        }
+        if (min == max){
+            return;
+        }
+        //选择最小的shift，使桶数不超过n / 8
+        long range = (long) max - min;
+        int targetBuckets = Math.max(1, n / AVERAGE_BUCKET_SIZE);
+        int shift = 0;
+        while ((range >>> shift) >= targetBuckets){
+            shift++;
+        }
+        int bucketCount = (int) (range >>> shift) + 1;
+
+        //统计每个桶的大小，转换为每个桶在辅助数组中的起始位置
+        int[] offset = new int[bucketCount + 1];
+        for (int v : array){
+            offset[(int) (((long) v - min) >>> shift) + 1]++;
+        }
+        for (int i = 1; i <= bucketCount; i++){
+            offset[i] += offset[i - 1];
+        }
+        int[] buffer = new int[n];
+        int[] next = Arrays.copyOf(offset, bucketCount);
+        for (int v : array){
+            buffer[next[(int) (((long) v - min) >>> shift)]++] = v;
+        }
+
+        pool.invoke(new IntBucketTask(buffer, array, offset, 0, bucketCount));
+    }
+
+    /**
+     * double[]的并行桶排序，适合均匀分布的数据，例如延迟采样
+     * 按(x - min) * bucketCount / (max - min)线性分桶，NaN排在最后，-0.0排在0.0前面
+     * @param array
+     */
+    public static void parallelBucketSort(double[] array){
+        parallelBucketSort(array, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param array
+     * @param pool
+     */
+    public static void parallelBucketSort(double[] array, ForkJoinPool pool){
+        //先把NaN移到末尾，不参与分桶
+        int n = array.length;
+        for (int i = 0; i < n; i++){
+            if (Double.isNaN(array[i])){
+                n--;
+                double temp = array[i];
+                array[i] = array[n];
+                array[n] = temp;
+                i--;
+            }
+        }
+        if (n <= INSERTION_SORT_THRESHOLD){
+            insertionSort(array, 0, n);
+            return;
+        }
+        double max = array[0], min = array[0];
+        for (int i = 0; i < n; i++){
+            double v = array[i];
+            if (v > max){
+                max = v;
+            }
+            if (v < min){
+                min = v;
+            }
+        }
+        double range = max - min;
+        if (Double.isInfinite(range)){
+            //无穷大无法线性映射到桶
+            Arrays.sort(array, 0, n);
+            return;
+        }
+        if (range == 0){
+            insertionSort(array, 0, n);
+            return;
+        }
+
+        int bucketCount = Math.max(1, n / AVERAGE_BUCKET_SIZE);
+        double scale = bucketCount / range;
+        int[] offset = new int[bucketCount + 1];
+        for (int i = 0; i < n; i++){
+            offset[bucketIndex(array[i], min, scale, bucketCount) + 1]++;
+        }
+        for (int i = 1; i <= bucketCount; i++){
+            offset[i] += offset[i - 1];
+        }
+        double[] buffer = new double[n];
+        int[] next = Arrays.copyOf(offset, bucketCount);
+        for (int i = 0; i < n; i++){
+            double v = array[i];
+            buffer[next[bucketIndex(v, min, scale, bucketCount)]++] = v;
+        }
+
+        pool.invoke(new DoubleBucketTask(buffer, array, offset, 0, bucketCount));
+    }
+
+    private static int bucketIndex(double v, double min, double scale, int bucketCount){
+        int index = (int) ((v - min) * scale);
+        return index < bucketCount ? index : bucketCount - 1;
+    }
+
+    /**
+     * 对区间[from, to)做插入排序，按Double.compare的顺序
+     */
+    private static void insertionSort(double[] array, int from, int to){
+        for (int index = from + 1; index < to; index++){
+            double temp = array[index];
+            int leftindex = index - 1;
+            while (leftindex >= from && Double.compare(array[leftindex], temp) > 0){
+                array[leftindex + 1] = array[leftindex];
+                leftindex--;
+            }
+            array[leftindex + 1] = temp;
+        }
+    }
+
+    /**
+     * 对[firstBucket, lastBucket)范围内的桶排序，并从辅助数组写回原数组
+     * 元素个数超过阈值时按桶拆成两半并行处理
+     */
+    private static class IntBucketTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] buffer;
+        private final int[] array;
+        private final int[] offset;
+        private final int firstBucket;
+        private final int lastBucket;
+
+        IntBucketTask(int[] buffer, int[] array, int[] offset, int firstBucket, int lastBucket){
+            this.buffer = buffer;
+            this.array = array;
+            this.offset = offset;
+            this.firstBucket = firstBucket;
+            this.lastBucket = lastBucket;
+        }
+
+        @Override
+        protected void compute() {
+            int low = offset[firstBucket], high = offset[lastBucket];
+            if (high - low > PARALLEL_THRESHOLD && lastBucket - firstBucket > 1){
+                int mid = (firstBucket + lastBucket) >>> 1;
+                invokeAll(new IntBucketTask(buffer, array, offset, firstBucket, mid),
+                        new IntBucketTask(buffer, array, offset, mid, lastBucket));
+                return;
+            }
+            for (int b = firstBucket; b < lastBucket; b++){
+                int from = offset[b], to = offset[b + 1];
+                if (to - from > INSERTION_SORT_THRESHOLD){
+                    Fast.introSort(buffer, from, to - 1);
+                } else {
+                    Insert.insertionSort(buffer, from, to - 1);
+                }
+            }
+            System.arraycopy(buffer, low, array, low, high - low);
+        }
+    }
+
+    private static class DoubleBucketTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] buffer;
+        private final double[] array;
+        private final int[] offset;
+        private final int firstBucket;
+        private final int lastBucket;
+
+        DoubleBucketTask(double[] buffer, double[] array, int[] offset, int firstBucket, int lastBucket){
+            this.buffer = buffer;
+            this.array = array;
+            this.offset = offset;
+            this.firstBucket = firstBucket;
+            this.lastBucket = lastBucket;
+        }
+
+        @Override
+        protected void compute() {
+            int low = offset[firstBucket], high = offset[lastBucket];
+            if (high - low > PARALLEL_THRESHOLD && lastBucket - firstBucket > 1){
+                int mid = (firstBucket + lastBucket) >>> 1;
+                invokeAll(new DoubleBucketTask(buffer, array, offset, firstBucket, mid),
+                        new DoubleBucketTask(buffer, array, offset, mid, lastBucket));
+                return;
+            }
+            for (int b = firstBucket; b < lastBucket; b++){
+                int from = offset[b], to = offset[b + 1];
+                if (to - from > INSERTION_SORT_THRESHOLD){
+                    //分布不均匀时个别桶会很大，退回到库函数排序
+                    Arrays.sort(buffer, from, to);
+                } else {
+                    insertionSort(buffer, from, to);
+                }
+            }
+            System.arraycopy(buffer, low, array, low, high - low);
+        }
+    }
+
 }
@@ -9,6 +9,7 @@ public class Bubbling {
     public static void main(String[] args) {
         int[] array = {38, 29, 14, 35, 22, 61, 35, 59, 36, 2, -1, -12};
         setBubbling(array);
+        IntSink.print(array);
     }
 
 
@@ -24,9 +25,29 @@ public class Bubbling {
                 }
             }
         }
+    }
 
-        for (int a: array){
-            System.out.println(a);
+    /**
+     * 对区间[from, to)做冒泡排序，不输出结果
+     * @param array
+     * @param from
+     * @param to
+     */
+    public static void setBubbling(int[] array, int from, int to){
+        for (int i = from; i < to; i++){
+            for (int j = from; j < to - 1 - (i - from); j++){
+                if (array[j] > array[j + 1]){
+                    int temp = array[j + 1];
+                    array[j + 1] = array[j];
+                    array[j] = temp;
+                    if (SortMetrics.ENABLED){
+                        SortMetrics.moved(2);
+                    }
+                }
+            }
+            if (SortMetrics.ENABLED){
+                SortMetrics.compared(Math.max(0, to - 1 - (i - from) - from));
+            }
         }
     }
 
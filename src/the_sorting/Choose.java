@@ -8,6 +8,7 @@ public class Choose {
     public static void main(String[] args) {
         int[] array = {38, 29, 14, 35, 22, 61, 35, 59, 36, 2, -1, -12};
         setSelect(array);
+        IntSink.print(array);
     }
 
 
@@ -24,14 +25,30 @@ public class Choose {
             array[i] = array[minIndex];
             array[minIndex] = temp;
         }
+    }
 
-        for (int a : array){
-            System.out.println(a);
+    /**
+     * 对区间[from, to)做选择排序，不输出结果
+     * @param array
+     * @param from
+     * @param to
+     */
+    public static void setSelect(int[] array, int from, int to){
+        for (int i = from; i < to - 1; i++){
+            int minIndex = i;
+            for (int j = minIndex + 1; j < to; j++){
+                if (array[j] < array[minIndex]){
+                    minIndex = j;
+                }
+            }
+            int temp = array[i];
+            array[i] = array[minIndex];
+            array[minIndex] = temp;
+            if (SortMetrics.ENABLED){
+                SortMetrics.compared(to - 1 - i);
+                SortMetrics.moved(2);
+            }
         }
     }
 
-
-
-
-
 }
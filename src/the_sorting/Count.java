@@ -1,11 +1,30 @@
 package the_sorting;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
 /**
  * 8.
  * 计数排序
  */
 public class Count {
 
+    /**
+     * 值域长度超过元素个数的这个倍数时，计数数组比原数组还大，改用基数排序
+     */
+    public static final int MAX_RANGE_FACTOR = 4;
+
+    /**
+     * 计数数组允许占用的最大内存（字节）
+     */
+    public static final long DEFAULT_MEMORY_LIMIT = 64L << 20;
+
+    /**
+     * 元素个数不少于它时并行统计频率
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
 
     public static void main(String[] args) {
         int[] array = {38, 29, 14, 35, 22, 61, 35, 59, 36, 2, -1, -10, -12};
@@ -18,6 +37,35 @@ public class Count {
 
 
     public static int[] countSort(int[] array){
+        return countSort(array, new int[array.length]);
+    }
+
+    /**
+     * 计数排序，结果写入调用方提供的数组
+     * 先根据最大值最小值估算计数数组的内存，值域相对元素个数过宽或超过内存上限时改用基数排序，
+     * 不会因为个别离群值（例如Integer.MIN_VALUE和Integer.MAX_VALUE同时出现）而溢出或耗尽内存
+     * @param array
+     * @param result 输出数组，长度至少为array.length，可以就是array本身
+     * @return result
+     */
+    public static int[] countSort(int[] array, int[] result){
+        return countSort(array, result, DEFAULT_MEMORY_LIMIT);
+    }
+
+    /**
+     * @param array
+     * @param result 输出数组，长度至少为array.length，可以就是array本身
+     * @param memoryLimit 计数数组允许占用的最大内存（字节）
+     * @return result
+     */
+    public static int[] countSort(int[] array, int[] result, long memoryLimit){
+        if (result.length < array.length){
+            throw new IllegalArgumentException("result length " + result.length + " < " + array.length);
+        }
+        int n = array.length;
+        if (n == 0){
+            return result;
+        }
         //求取最大值最小值，计算中间数组的长度，中间数组是用来记录原始数据中每个值出现的频率
         int max = array[0];
         int min = array[0];
@@ -30,31 +78,117 @@ public class Count {
             }
         }
 
-        //通过最大值最小值确定中间数组的长度
-        int[] len = new int[max - min + 1];
+        //每个叶子任务至少统计PARALLEL_THRESHOLD个元素，叶子数就是同时存在的计数数组的份数
+        int parallelism = (int) Math.min(ForkJoinPool.commonPool().getParallelism(),
+                ((long) n + PARALLEL_THRESHOLD - 1) / PARALLEL_THRESHOLD);
+        if (!isCountable(min, max, n, parallelism, memoryLimit)){
+            parallelism = 1;
+        }
+        if (!isCountable(min, max, n, parallelism, memoryLimit)){
+            //值域太宽，委托给基数排序
+            if (result != array){
+                System.arraycopy(array, 0, result, 0, n);
+            }
+            Radix.lsdSort(result, 0, n, null);
+            return result;
+        }
 
-        //循环遍历旧数组计数排序， 就是统计原始数组出现的频率到中间数组中
-        for (int i: array){
-            //数的位数
-            len[i - min] += 1;
+        //通过最大值最小值确定中间数组的长度，统计原始数组出现的频率到中间数组中
+        int[] len;
+        if (parallelism > 1){
+            len = ForkJoinPool.commonPool().invoke(new HistogramTask(array, 0, parallelism, parallelism, min, max - min + 1));
+        } else {
+            len = new int[max - min + 1];
+            for (int i: array){
+                len[i - min] += 1;
+            }
         }
 
-        //遍历输出
-        //创建最终数组，就是返回的数组，和原始数组长度相等，但是排序完成
-        int[] result = new int[array.length];
         //记录最终数组的下标
         int index = 0;
-
-        //先循环每一个元素，在计数排序器的下标中
+        //先循环每一个元素，在计数排序器的下标中，len[i]这个数出现的频率
         for (int i = 0; i < len.length; i++){
-            //循环出现的次数  len[i]这个数出现的频路
-            for (int j = 0; j < len[i]; j++){
-                //以为原来减少了min现在加上min, 值就变成了原来的值
-                result[index++] = i + min;
+            if (len[i] > 0){
+                Arrays.fill(result, index, index + len[i], i + min);
+                index += len[i];
             }
         }
         return result;
+    }
+
+    /**
+     * 估算计数数组需要的字节数
+     * @param min
+     * @param max
+     * @param parallelism 并行统计的叶子任务数，每个叶子各自持有一份计数数组
+     * @return
+     */
+    public static long estimateBytes(int min, int max, int parallelism){
+        long range = (long) max - min + 1;
+        return range * Integer.BYTES * parallelism;
+    }
+
+    /**
+     * 判断值域是否适合计数排序
+     */
+    private static boolean isCountable(int min, int max, int n, int parallelism, long memoryLimit){
+        long range = (long) max - min + 1;
+        return range <= (long) n * MAX_RANGE_FACTOR + 256
+                && estimateBytes(min, max, parallelism) <= memoryLimit;
+    }
+
+    /**
+     * 并行统计频率，数组等分成leaves块，每块是一个叶子任务，使用自己的计数数组，合并时把右半部分累加到左半部分
+     * 叶子数固定，计数数组最多leaves份，与estimateBytes一致
+     */
+    private static class HistogramTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] array;
+        private final int first;
+        private final int last;
+        private final int leaves;
+        private final int min;
+        private final int range;
 
+        /**
+         * 统计第[first, last)块
+         */
+        HistogramTask(int[] array, int first, int last, int leaves, int min, int range){
+            this.array = array;
+            this.first = first;
+            this.last = last;
+            this.leaves = leaves;
+            this.min = min;
+            this.range = range;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (last - first == 1){
+                int[] len = new int[range];
+                for (int i = bound(first), high = bound(last); i < high; i++){
+                    len[array[i] - min] += 1;
+                }
+                return len;
+            }
+            int mid = (first + last) >>> 1;
+            HistogramTask right = new HistogramTask(array, mid, last, leaves, min, range);
+            right.fork();
+            int[] len = new HistogramTask(array, first, mid, leaves, min, range).compute();
+            int[] other = right.join();
+            for (int i = 0; i < range; i++){
+                len[i] += other[i];
+            }
+            return len;
+        }
+
+        /**
+         * 第block块的起点
+         */
+        private int bound(int block){
+            return (int) ((long) array.length * block / leaves);
+        }
     }
 
 }
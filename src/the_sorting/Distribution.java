@@ -0,0 +1,135 @@
+package the_sorting;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 测试数据的分布，用于基准测试和对比各种排序
+ */
+public enum Distribution {
+
+    /**
+     * 均匀随机
+     */
+    RANDOM {
+        @Override
+        void fill(int[] array, Random random) {
+            for (int i = 0; i < array.length; i++){
+                array[i] = random.nextInt();
+            }
+        }
+    },
+
+    /**
+     * 升序
+     */
+    SORTED {
+        @Override
+        void fill(int[] array, Random random) {
+            for (int i = 0; i < array.length; i++){
+                array[i] = i;
+            }
+        }
+    },
+
+    /**
+     * 降序
+     */
+    REVERSED {
+        @Override
+        void fill(int[] array, Random random) {
+            for (int i = 0; i < array.length; i++){
+                array[i] = array.length - i;
+            }
+        }
+    },
+
+    /**
+     * 锯齿：若干段长度相同的升序段
+     */
+    SAWTOOTH {
+        @Override
+        void fill(int[] array, Random random) {
+            int tooth = Math.max(1, (int) Math.sqrt(array.length));
+            for (int i = 0; i < array.length; i++){
+                array[i] = i % tooth;
+            }
+        }
+    },
+
+    /**
+     * 风琴管：前半段升序，后半段降序
+     */
+    ORGAN_PIPE {
+        @Override
+        void fill(int[] array, Random random) {
+            int n = array.length;
+            for (int i = 0; i < n; i++){
+                array[i] = i < n / 2 ? i : n - i;
+            }
+        }
+    },
+
+    /**
+     * 只有少数几个不同的值
+     */
+    FEW_UNIQUE {
+        @Override
+        void fill(int[] array, Random random) {
+            for (int i = 0; i < array.length; i++){
+                array[i] = random.nextInt(8) * 1000;
+            }
+        }
+    },
+
+    /**
+     * Zipf分布（s = 1），排名越靠前的值出现得越多
+     */
+    ZIPF {
+        @Override
+        void fill(int[] array, Random random) {
+            int k = Math.max(1, Math.min(array.length, 1 << 16));
+            double[] cdf = new double[k];
+            double sum = 0;
+            for (int i = 0; i < k; i++){
+                sum += 1.0 / (i + 1);
+                cdf[i] = sum;
+            }
+            for (int i = 0; i < array.length; i++){
+                int rank = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+                array[i] = rank >= 0 ? rank : Math.min(-rank - 1, k - 1);
+            }
+        }
+    },
+
+    /**
+     * 升序，其中1%的位置替换为随机值
+     */
+    SORTED_NOISE {
+        @Override
+        void fill(int[] array, Random random) {
+            int n = array.length;
+            for (int i = 0; i < n; i++){
+                array[i] = i;
+            }
+            for (int i = 0; i < n / 100; i++){
+                array[random.nextInt(n)] = random.nextInt(n);
+            }
+        }
+    };
+
+    abstract void fill(int[] array, Random random);
+
+    /**
+     * 生成长度为n的数据，相同的seed得到相同的数据
+     * @param n
+     * @param seed
+     * @return
+     */
+    public int[] generate(int n, long seed){
+        int[] array = new int[n];
+        fill(array, new Random(seed));
+        return array;
+    }
+
+}
@@ -0,0 +1,354 @@
+package the_sorting;
+
+import java.util.Arrays;
+
+/**
+ * double[]的排序，算法与int[]版本相同：内省排序、堆排序、归并排序、基数排序
+ * 直接按double比较和移动，没有装箱，也没有比较器调用
+ * 浮点数按IEEE全序排列：-0.0排在0.0前面，NaN排在最后
+ * 所有区间都是[from, to)
+ * 由tools/GenerateSorts.java根据tools/Sorts.java.template生成，修改模板后重新生成，不要直接修改
+ */
+public class DoubleSorts {
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private static final int NINTHER_THRESHOLD = 128;
+
+    private static final int MERGE_INSERTION_THRESHOLD = 32;
+
+    private static final int RADIX_INSERTION_THRESHOLD = 64;
+
+    public static void main(String[] args) {
+        double[] array = {3.8, 2.9, Double.NaN, 0.0, -0.0, 6.1, 3.5, 5.9, Double.NEGATIVE_INFINITY, 0.2, -1, -1.2};
+        introSort(array);
+        System.out.println(Arrays.toString(array));
+    }
+
+    public static void introSort(double[] array){
+        introSort(array, 0, array.length);
+    }
+
+    /**
+     * 内省排序，三数取中/九数取中选基准，层数超过2*log2(n)时改用堆排序
+     * @param array
+     * @param from
+     * @param to
+     */
+    public static void introSort(double[] array, int from, int to){
+        int end = moveNaNsToEnd(array, from, to);
+        int negativeZeros = clearNegativeZeros(array, from, end);
+        if (end - from > 1){
+            introSort(array, from, end - 1, 2 * log2(end - from));
+        }
+        restoreNegativeZeros(array, from, end, negativeZeros);
+    }
+
+    public static void heapSort(double[] array){
+        heapSort(array, 0, array.length);
+    }
+
+    /**
+     * 堆排序
+     * @param array
+     * @param from
+     * @param to
+     */
+    public static void heapSort(double[] array, int from, int to){
+        int end = moveNaNsToEnd(array, from, to);
+        int negativeZeros = clearNegativeZeros(array, from, end);
+        heapSortRange(array, from, end);
+        restoreNegativeZeros(array, from, end, negativeZeros);
+    }
+
+    public static void mergeSort(double[] array){
+        mergeSort(array, 0, array.length);
+    }
+
+    /**
+     * 稳定的归并排序，只分配一个辅助数组，NaN借助它稳定地移到末尾
+     * @param array
+     * @param from
+     * @param to
+     */
+    public static void mergeSort(double[] array, int from, int to){
+        if (to - from < 2){
+            return;
+        }
+        double[] buffer = new double[to - from];
+        //非NaN按原顺序前移，NaN按原顺序暂存到辅助数组后放回末尾
+        int end = from, nan = 0;
+        for (int i = from; i < to; i++){
+            double v = array[i];
+            if (v != v){
+                buffer[nan++] = v;
+            } else {
+                array[end++] = v;
+            }
+        }
+        System.arraycopy(buffer, 0, array, end, nan);
+        int negativeZeros = clearNegativeZeros(array, from, end);
+        mergeSortRange(array, buffer, from, end);
+        restoreNegativeZeros(array, from, end, negativeZeros);
+    }
+
+    /**
+     * 把NaN交换到区间末尾，返回第一个NaN的位置
+     */
+    private static int moveNaNsToEnd(double[] array, int from, int to){
+        int end = to;
+        for (int i = from; i < end; ){
+            double v = array[i];
+            if (v != v){
+                array[i] = array[--end];
+                array[end] = v;
+            } else {
+                i++;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * 把-0.0改为0.0，返回-0.0的个数，排序时只需要用<比较
+     */
+    private static int clearNegativeZeros(double[] array, int from, int to){
+        int count = 0;
+        for (int i = from; i < to; i++){
+            if (array[i] == 0 && Double.doubleToRawLongBits(array[i]) < 0){
+                array[i] = 0;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 排序后0.0连续排列，把开头的count个改回-0.0
+     */
+    private static void restoreNegativeZeros(double[] array, int from, int to, int count){
+        if (count == 0){
+            return;
+        }
+        int low = from, high = to;
+        while (low < high){
+            int mid = (low + high) >>> 1;
+            if (array[mid] < 0){
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < low + count; i++){
+            array[i] = -0.0;
+        }
+    }
+
+    private static void introSort(double[] array, int start, int end, int depthLimit){
+        while (end - start + 1 > INSERTION_SORT_THRESHOLD){
+            if (depthLimit == 0){
+                heapSortRange(array, start, end + 1);
+                return;
+            }
+            depthLimit--;
+            int p = partition(array, start, end);
+            if (p - start < end - p){
+                introSort(array, start, p - 1, depthLimit);
+                start = p + 1;
+            } else {
+                introSort(array, p + 1, end, depthLimit);
+                end = p - 1;
+            }
+        }
+        insertionSort(array, start, end + 1);
+    }
+
+    private static int partition(double[] array, int start, int end){
+        int len = end - start + 1;
+        int mid = start + (len >>> 1);
+        int pivotIndex;
+        if (len > NINTHER_THRESHOLD){
+            int step = len / 8;
+            int a = medianOfThree(array, start, start + step, start + 2 * step);
+            int b = medianOfThree(array, mid - step, mid, mid + step);
+            int c = medianOfThree(array, end - 2 * step, end - step, end);
+            pivotIndex = medianOfThree(array, a, b, c);
+        } else {
+            pivotIndex = medianOfThree(array, start, mid, end);
+        }
+        swap(array, start, pivotIndex);
+
+        double temp = array[start];
+        int left = start, right = end + 1;
+        while (true){
+            do {
+                left++;
+            } while (left < end && array[left] < temp);
+            do {
+                right--;
+            } while (temp < array[right]);
+            if (left >= right){
+                break;
+            }
+            swap(array, left, right);
+        }
+        swap(array, start, right);
+        return right;
+    }
+
+    private static int medianOfThree(double[] array, int a, int b, int c){
+        if (array[a] < array[b]){
+            if (array[b] < array[c]){
+                return b;
+            }
+            return array[a] < array[c] ? c : a;
+        }
+        if (array[a] < array[c]){
+            return a;
+        }
+        return array[b] < array[c] ? c : b;
+    }
+
+    private static void heapSortRange(double[] array, int from, int to){
+        int len = to - from;
+        for (int i = len / 2 - 1; i >= 0; i--){
+            heapAdjust(array, from, len, i);
+        }
+        for (int i = len - 1; i >= 1; i--){
+            swap(array, from, from + i);
+            heapAdjust(array, from, i, 0);
+        }
+    }
+
+    private static void heapAdjust(double[] array, int offset, int len, int i){
+        int k = i, index = 2 * k + 1;
+        double temp = array[offset + i];
+        while (index < len){
+            if (index + 1 < len && array[offset + index] < array[offset + index + 1]){
+                index = index + 1;
+            }
+            if (array[offset + index] > temp){
+                array[offset + k] = array[offset + index];
+                k = index;
+                index = 2 * k + 1;
+            } else {
+                break;
+            }
+        }
+        array[offset + k] = temp;
+    }
+
+    /**
+     * 两半分别递归排序后，把左半部分复制到辅助数组再合并回原数组，相等时左边优先
+     */
+    private static void mergeSortRange(double[] array, double[] buffer, int from, int to){
+        if (to - from <= MERGE_INSERTION_THRESHOLD){
+            insertionSort(array, from, to);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSortRange(array, buffer, from, mid);
+        mergeSortRange(array, buffer, mid, to);
+        //两半已经整体有序
+        if (!(array[mid] < array[mid - 1])){
+            return;
+        }
+        int leftLen = mid - from;
+        System.arraycopy(array, from, buffer, 0, leftLen);
+        int i = 0, j = mid, k = from;
+        while (i < leftLen && j < to){
+            array[k++] = array[j] < buffer[i] ? array[j++] : buffer[i++];
+        }
+        if (i < leftLen){
+            System.arraycopy(buffer, i, array, k, leftLen - i);
+        }
+    }
+
+    private static void insertionSort(double[] array, int from, int to){
+        for (int index = from + 1; index < to; index++){
+            double temp = array[index];
+            int leftindex = index - 1;
+            while (leftindex >= from && array[leftindex] > temp){
+                array[leftindex + 1] = array[leftindex];
+                leftindex--;
+            }
+            array[leftindex + 1] = temp;
+        }
+    }
+
+    public static void radixSort(double[] array){
+        radixSort(array, 0, array.length);
+    }
+
+    /**
+     * 按字节的LSD基数排序，浮点数的位模式转换为按无符号比较的整数，-0.0排在0.0前面，NaN排在最后
+     * 一次遍历统计所有字节的频率，所有元素某一字节都相同时跳过这一趟
+     * @param array
+     * @param from
+     * @param to
+     */
+    public static void radixSort(double[] array, int from, int to){
+        int n = to - from;
+        if (n < RADIX_INSERTION_THRESHOLD){
+            introSort(array, from, to);
+            return;
+        }
+        int[] count = new int[8 * 256];
+        for (int i = from; i < to; i++){
+            long key = key(array[i]);
+            for (int b = 0; b < 8; b++){
+                count[b * 256 + (int) ((key >>> (b * 8)) & 0xFF)]++;
+            }
+        }
+
+        double[] buffer = new double[n];
+        double[] src = array, dst = buffer;
+        int srcFrom = from, dstFrom = 0;
+        for (int b = 0; b < 8; b++){
+            int base = b * 256;
+            int shift = b * 8;
+            if (count[base + (int) ((key(src[srcFrom]) >>> shift) & 0xFF)] == n){
+                continue;
+            }
+            int sum = 0;
+            for (int i = base; i < base + 256; i++){
+                int c = count[i];
+                count[i] = sum;
+                sum += c;
+            }
+            for (int i = srcFrom, srcTo = srcFrom + n; i < srcTo; i++){
+                double v = src[i];
+                dst[dstFrom + count[base + (int) ((key(v) >>> shift) & 0xFF)]++] = v;
+            }
+            double[] t = src;
+            src = dst;
+            dst = t;
+            int f = srcFrom;
+            srcFrom = dstFrom;
+            dstFrom = f;
+        }
+        if (src != array){
+            System.arraycopy(src, srcFrom, array, from, n);
+        }
+    }
+
+    /**
+     * 按无符号比较时与double的顺序一致的键
+     */
+    static long key(double v){
+        long bits = Double.doubleToLongBits(v);
+        //负数翻转所有位，正数只翻转符号位，NaN统一为最大的正NaN
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+    private static void swap(double[] array, int i, int j){
+        double temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+    }
+
+    private static int log2(int n){
+        return 31 - Integer.numberOfLeadingZeros(n);
+    }
+
+}
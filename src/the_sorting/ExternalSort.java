@@ -0,0 +1,417 @@
+package the_sorting;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 外部归并排序，用于排序比堆内存大得多的文件
+ * 文件由定长的键（4字节int或8字节long）组成
+ * 1. 分段：每次读入一段内存放得下的数据，用Sorter.adaptive()排序后写入临时文件，得到若干有序段
+ * 2. 归并：每个有序段用一块直接缓冲区顺序读取，用败者树做多路归并，写入结果文件；
+ *    各段的读缓冲区切分自同一块直接缓冲区，整个排序只分配一次，每次归并都复用
+ * 有序段太多时先分组归并成较少的有序段，再做最后一次归并，失败时删除已经生成的临时文件
+ * 所有读写都是顺序的
+ */
+public class ExternalSort {
+
+    /**
+     * 读写文件的缓冲区大小
+     */
+    private static final int IO_BUFFER_BYTES = 8 << 20;
+
+    /**
+     * 归并时每个有序段读缓冲区的上限和下限
+     */
+    private static final int MAX_READ_BYTES = 1 << 20;
+
+    private static final int MIN_READ_BYTES = 1 << 12;
+
+    /**
+     * 一次归并最多的有序段个数
+     */
+    private static final int MAX_FAN_IN = 512;
+
+    private final int keyBytes;
+    private final ByteOrder order;
+    private final long memoryBytes;
+    private final File tempDir;
+
+    public static void main(String[] args) throws IOException {
+        File input = File.createTempFile("external-sort", ".in");
+        File output = File.createTempFile("external-sort", ".out");
+        input.deleteOnExit();
+        output.deleteOnExit();
+        int n = 1_000_000;
+        Random random = new Random();
+        try (FileChannel channel = new RandomAccessFile(input, "rw").getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(n * 4);
+            for (int i = 0; i < n; i++){
+                buffer.putInt(random.nextInt());
+            }
+            buffer.flip();
+            channel.write(buffer);
+        }
+        //只给1MB内存，强制生成多个有序段
+        new ExternalSort(4, ByteOrder.BIG_ENDIAN, 1 << 20, null).sort(input, output);
+
+        try (FileChannel channel = new RandomAccessFile(output, "r").getChannel()) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int previous = Integer.MIN_VALUE;
+            for (int i = 0; i < n; i++){
+                int v = buffer.getInt();
+                if (v < previous){
+                    throw new IllegalStateException("not sorted at " + i);
+                }
+                previous = v;
+            }
+        }
+        System.out.println("sorted " + n + " keys");
+    }
+
+    /**
+     * 4字节大端键，使用最大堆内存的四分之一
+     */
+    public ExternalSort(){
+        this(4, ByteOrder.BIG_ENDIAN, Runtime.getRuntime().maxMemory() / 4, null);
+    }
+
+    /**
+     * @param keyBytes 键的宽度，4表示int，8表示long
+     * @param order 文件中键的字节序
+     * @param memoryBytes 分段时一段数据占用的内存（字节），基数排序还需要同样大小的辅助数组
+     * @param tempDir 临时文件目录，null表示系统默认目录
+     */
+    public ExternalSort(int keyBytes, ByteOrder order, long memoryBytes, File tempDir){
+        if (keyBytes != 4 && keyBytes != 8){
+            throw new IllegalArgumentException("key width must be 4 or 8 bytes: " + keyBytes);
+        }
+        this.keyBytes = keyBytes;
+        this.order = order;
+        this.memoryBytes = memoryBytes;
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * 排序input，结果写入output
+     * @param input
+     * @param output
+     * @throws IOException
+     */
+    public void sort(File input, File output) throws IOException {
+        List<File> runs = createRuns(input);
+        try {
+            int perRun = readBytes(Math.min(runs.size(), MAX_FAN_IN));
+            ByteBuffer readBuffer = ByteBuffer.allocateDirect(perRun * Math.min(runs.size(), MAX_FAN_IN));
+            while (runs.size() > MAX_FAN_IN){
+                List<File> merged = new ArrayList<>();
+                try {
+                    for (int i = 0; i < runs.size(); i += MAX_FAN_IN){
+                        List<File> group = runs.subList(i, Math.min(runs.size(), i + MAX_FAN_IN));
+                        File run = File.createTempFile("run", ".bin", tempDir);
+                        merged.add(run);
+                        merge(group, run, readBuffer, perRun);
+                        delete(group);
+                    }
+                } catch (IOException | RuntimeException e){
+                    //已经写出的段和写了一半的段都在merged中
+                    delete(merged);
+                    throw e;
+                }
+                runs = merged;
+            }
+            merge(runs, output, readBuffer, perRun);
+        } finally {
+            delete(runs);
+        }
+    }
+
+    /**
+     * 分段读入、排序并写入临时文件
+     */
+    private List<File> createRuns(File input) throws IOException {
+        List<File> runs = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES).order(order);
+        try (FileChannel in = new RandomAccessFile(input, "r").getChannel()) {
+            long size = in.size();
+            if (size % keyBytes != 0){
+                throw new IOException(input + " size " + size + " is not a multiple of " + keyBytes);
+            }
+            int chunk = (int) Math.min(Math.max(1, memoryBytes / keyBytes), Integer.MAX_VALUE - 8);
+            chunk = (int) Math.min(chunk, size / keyBytes);
+            int[] ints = keyBytes == 4 ? new int[chunk] : null;
+            long[] longs = keyBytes == 8 ? new long[chunk] : null;
+            long remaining = size / keyBytes;
+            while (remaining > 0){
+                int n = (int) Math.min(chunk, remaining);
+                remaining -= n;
+                File run = File.createTempFile("run", ".bin", tempDir);
+                runs.add(run);
+                try (FileChannel out = new RandomAccessFile(run, "rw").getChannel()) {
+                    if (ints != null){
+                        readInts(in, buffer, ints, n);
+                        Sorter.adaptive().sort(ints, 0, n);
+                        writeInts(out, buffer, ints, n);
+                    } else {
+                        readLongs(in, buffer, longs, n);
+                        Sorter.adaptive().sort(longs, 0, n);
+                        writeLongs(out, buffer, longs, n);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e){
+            delete(runs);
+            throw e;
+        }
+        return runs;
+    }
+
+    /**
+     * 归并fanIn个有序段时每段读缓冲区的字节数，是键宽度的整数倍，所有段合计不超过memoryBytes
+     */
+    private int readBytes(int fanIn){
+        long per = memoryBytes / Math.max(1, fanIn);
+        per = Math.max(MIN_READ_BYTES, Math.min(MAX_READ_BYTES, per));
+        return (int) (per / keyBytes * keyBytes);
+    }
+
+    /**
+     * 用败者树把多个有序段归并到output
+     * @param readBuffer 切分成每段perRun字节的读缓冲区
+     */
+    private void merge(List<File> runs, File output, ByteBuffer readBuffer, int perRun) throws IOException {
+        List<RunReader> readers = new ArrayList<>();
+        try (FileChannel out = new RandomAccessFile(output, "rw").getChannel()) {
+            out.truncate(0);
+            for (int i = 0; i < runs.size(); i++){
+                readBuffer.clear();
+                readBuffer.position(i * perRun).limit((i + 1) * perRun);
+                readers.add(new RunReader(runs.get(i), keyBytes, readBuffer.slice().order(order)));
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES).order(order);
+            LoserTree tree = new LoserTree(readers.toArray(new RunReader[0]));
+            while (tree.hasNext()){
+                if (buffer.remaining() < keyBytes){
+                    flush(out, buffer);
+                }
+                long key = tree.next();
+                if (keyBytes == 4){
+                    buffer.putInt((int) key);
+                } else {
+                    buffer.putLong(key);
+                }
+            }
+            flush(out, buffer);
+        } finally {
+            for (RunReader reader : readers){
+                reader.close();
+            }
+        }
+    }
+
+    private static void readInts(FileChannel in, ByteBuffer buffer, int[] array, int n) throws IOException {
+        int index = 0;
+        while (index < n){
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), (long) (n - index) * 4));
+            readFully(in, buffer);
+            buffer.flip();
+            int count = buffer.remaining() / 4;
+            buffer.asIntBuffer().get(array, index, count);
+            index += count;
+        }
+    }
+
+    private static void readLongs(FileChannel in, ByteBuffer buffer, long[] array, int n) throws IOException {
+        int index = 0;
+        while (index < n){
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), (long) (n - index) * 8));
+            readFully(in, buffer);
+            buffer.flip();
+            int count = buffer.remaining() / 8;
+            buffer.asLongBuffer().get(array, index, count);
+            index += count;
+        }
+    }
+
+    private static void writeInts(FileChannel out, ByteBuffer buffer, int[] array, int n) throws IOException {
+        int index = 0;
+        while (index < n){
+            buffer.clear();
+            int count = Math.min(buffer.capacity() / 4, n - index);
+            buffer.asIntBuffer().put(array, index, count);
+            buffer.position(count * 4);
+            flush(out, buffer);
+            index += count;
+        }
+    }
+
+    private static void writeLongs(FileChannel out, ByteBuffer buffer, long[] array, int n) throws IOException {
+        int index = 0;
+        while (index < n){
+            buffer.clear();
+            int count = Math.min(buffer.capacity() / 8, n - index);
+            buffer.asLongBuffer().put(array, index, count);
+            buffer.position(count * 8);
+            flush(out, buffer);
+            index += count;
+        }
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()){
+            if (in.read(buffer) < 0){
+                throw new IOException("unexpected end of file");
+            }
+        }
+    }
+
+    /**
+     * 把缓冲区中的数据全部写出并清空缓冲区
+     */
+    private static void flush(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()){
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void delete(List<File> files){
+        for (File file : files){
+            file.delete();
+        }
+    }
+
+    /**
+     * 用一块复用的缓冲区顺序读出一个有序段中的键
+     */
+    private static class RunReader {
+        private final FileChannel channel;
+        private final int keyBytes;
+        private final ByteBuffer buffer;
+        private final long size;
+        private long position;
+
+        /**
+         * @param buffer 读缓冲区，容量是键宽度的整数倍，键不会跨两次读取
+         */
+        RunReader(File run, int keyBytes, ByteBuffer buffer) throws IOException {
+            this.channel = new RandomAccessFile(run, "r").getChannel();
+            this.keyBytes = keyBytes;
+            this.buffer = buffer;
+            this.size = channel.size();
+            buffer.limit(0);
+        }
+
+        boolean hasNext(){
+            return buffer.hasRemaining() || position < size;
+        }
+
+        long next() throws IOException {
+            if (!buffer.hasRemaining()){
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), size - position));
+                position += buffer.remaining();
+                readFully(channel, buffer);
+                buffer.flip();
+            }
+            return keyBytes == 4 ? buffer.getInt() : buffer.getLong();
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * 败者树，k路归并时每取出一个键只需要log2(k)次比较
+     * 叶子i对应第i个有序段，内部节点1..k-1保存比赛的败者，tree[0]保存最终的胜者
+     */
+    private static class LoserTree {
+        private final RunReader[] runs;
+        private final long[] keys;
+        private final boolean[] done;
+        private final int[] tree;
+        private final int k;
+
+        LoserTree(RunReader[] runs) throws IOException {
+            this.runs = runs;
+            this.k = runs.length;
+            this.keys = new long[k];
+            this.done = new boolean[k];
+            this.tree = new int[Math.max(1, k)];
+            for (int i = 0; i < k; i++){
+                advance(i);
+            }
+            if (k == 0){
+                return;
+            }
+            //自底向上比赛，winner[t]是以t为根的子树的胜者，叶子在k + i位置
+            int[] winner = new int[2 * k];
+            for (int i = 0; i < k; i++){
+                winner[k + i] = i;
+            }
+            for (int t = k - 1; t >= 1; t--){
+                int a = winner[2 * t], b = winner[2 * t + 1];
+                if (less(b, a)){
+                    winner[t] = b;
+                    tree[t] = a;
+                } else {
+                    winner[t] = a;
+                    tree[t] = b;
+                }
+            }
+            tree[0] = k == 1 ? 0 : winner[1];
+        }
+
+        boolean hasNext(){
+            return k > 0 && !done[tree[0]];
+        }
+
+        long next() throws IOException {
+            int s = tree[0];
+            long key = keys[s];
+            advance(s);
+            //沿着叶子到根的路径重新比赛
+            for (int t = (s + k) >> 1; t > 0; t >>= 1){
+                if (less(tree[t], s)){
+                    int temp = tree[t];
+                    tree[t] = s;
+                    s = temp;
+                }
+            }
+            tree[0] = s;
+            return key;
+        }
+
+        private void advance(int i) throws IOException {
+            if (runs[i].hasNext()){
+                keys[i] = runs[i].next();
+            } else {
+                done[i] = true;
+            }
+        }
+
+        /**
+         * 已经读完的有序段视为无穷大
+         */
+        private boolean less(int a, int b){
+            if (done[a]){
+                return false;
+            }
+            if (done[b]){
+                return true;
+            }
+            return keys[a] < keys[b];
+        }
+    }
+
+}
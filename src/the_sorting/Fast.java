@@ -5,6 +5,16 @@ package the_sorting;
  */
 public class Fast {
 
+    /**
+     * 区间长度不超过它时改用SmallSort
+     */
+    private static final int SMALL_SORT_THRESHOLD = 32;
+
+    /**
+     * 区间长度超过它时用九数取中（ninther）选基准，否则用三数取中
+     */
+    private static final int NINTHER_THRESHOLD = 128;
+
     public static void main(String[] args) {
         int[] array = {38, 29, 14, 35, 22, 61, 35, 59, 36, 2, -1, -12};
         QuickSort(array, 0, array.length-1);
@@ -25,14 +35,25 @@ public class Fast {
         //temp就是基准位
         temp = array[start];
 
+        long comparisons = 0;
         while (left < right){
             //先看右边，依次往左递减
             while (temp <= array[right] && left < right){
                 right--;
+                if (SortMetrics.ENABLED){
+                    comparisons++;
+                }
             }
             //再看左边，依次往右递增
             while (temp >= array[left] && left < right){
                 left++;
+                if (SortMetrics.ENABLED){
+                    comparisons++;
+                }
+            }
+            if (SortMetrics.ENABLED){
+                //两个循环各有一次结束时的比较
+                comparisons += 2;
             }
 
             //如果满足条件则交换
@@ -40,13 +61,579 @@ public class Fast {
                 tap = array[right];
                 array[right] = array[left];
                 array[left] = tap;
+                if (SortMetrics.ENABLED){
+                    SortMetrics.moved(2);
+                }
             }
         }
         //最后将基准与left和right相等位置的数字交换
         array[start] = array[left];
         array[left] = temp;
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(comparisons);
+            SortMetrics.moved(2);
+            SortMetrics.enter();
+        }
         QuickSort(array, start, right - 1);
         QuickSort(array, left + 1, end);
+        if (SortMetrics.ENABLED){
+            SortMetrics.exit();
+        }
+    }
+
+
+    //================内省排序（introsort）=========================
+
+    /**
+     * 内省排序，参数与QuickSort相同，可以直接替换
+     * 1. 三数取中/九数取中选择基准，有序和逆序输入不会退化
+     * 2. 只递归较小的一边，较大的一边循环处理，递归深度不超过log2(n)
+     * 3. 划分层数超过2*log2(n)时对该子区间改用堆排序，最坏情况O(nlogn)
+     * 4. 小区间用SmallSort（排序网络）收尾
+     * @param array
+     * @param start
+     * @param end
+     */
+    public static void introSort(int[] array, int start, int end){
+        if (start >= end){
+            return;
+        }
+        introSort(array, start, end, 2 * log2(end - start + 1), new int[SmallSort.SCRATCH_SIZE]);
+    }
+
+    private static void introSort(int[] array, int start, int end, int depthLimit, int[] scratch){
+        if (SortMetrics.ENABLED){
+            SortMetrics.enter();
+        }
+        while (end - start + 1 > SMALL_SORT_THRESHOLD){
+            if (depthLimit == 0){
+                Heap.heapSort(array, start, end);
+                if (SortMetrics.ENABLED){
+                    SortMetrics.exit();
+                }
+                return;
+            }
+            depthLimit--;
+            int p = partition(array, start, end);
+            //先递归较短的一边，再循环处理较长的一边
+            if (p - start < end - p){
+                introSort(array, start, p - 1, depthLimit, scratch);
+                start = p + 1;
+            } else {
+                introSort(array, p + 1, end, depthLimit, scratch);
+                end = p - 1;
+            }
+        }
+        SmallSort.sort(array, start, end + 1, scratch);
+        if (SortMetrics.ENABLED){
+            SortMetrics.exit();
+        }
+    }
+
+    /**
+     * 选出基准放到start位置后做划分，返回基准最终的下标
+     * 左右扫描遇到与基准相等的元素也会停下交换，大量重复元素时两边依然均衡
+     */
+    static int partition(int[] array, int start, int end){
+        return partitionAround(array, start, end, choosePivot(array, start, end));
+    }
+
+    /**
+     * 三数取中，区间较长时九数取中，返回基准的下标
+     */
+    static int choosePivot(int[] array, int start, int end){
+        int len = end - start + 1;
+        int mid = start + (len >>> 1);
+        if (len > NINTHER_THRESHOLD){
+            int step = len / 8;
+            int a = medianOfThree(array, start, start + step, start + 2 * step);
+            int b = medianOfThree(array, mid - step, mid, mid + step);
+            int c = medianOfThree(array, end - 2 * step, end - step, end);
+            return medianOfThree(array, a, b, c);
+        }
+        return medianOfThree(array, start, mid, end);
+    }
+
+    /**
+     * 以array[pivotIndex]为基准划分[start, end]，返回基准最终的下标
+     */
+    static int partitionAround(int[] array, int start, int end, int pivotIndex){
+        long startNanos = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        long comparisons = 0;
+        swap(array, start, pivotIndex);
+
+        int temp = array[start];
+        int left = start, right = end + 1;
+        while (true){
+            do {
+                left++;
+                if (SortMetrics.ENABLED){
+                    comparisons += left < end ? 1 : 0;
+                }
+            } while (left < end && array[left] < temp);
+            //array[start]就是基准，right不会越过start
+            do {
+                right--;
+                if (SortMetrics.ENABLED){
+                    comparisons++;
+                }
+            } while (temp < array[right]);
+            if (left >= right){
+                break;
+            }
+            swap(array, left, right);
+        }
+        swap(array, start, right);
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(comparisons);
+            SortMetrics.phase(SortMetrics.Phase.PARTITION, startNanos);
+        }
+        return right;
+    }
+
+    /**
+     * 返回三个下标中值居中的那个下标
+     */
+    private static int medianOfThree(int[] array, int a, int b, int c){
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(2);
+        }
+        if (array[a] < array[b]){
+            if (array[b] < array[c]){
+                return b;
+            }
+            if (SortMetrics.ENABLED){
+                SortMetrics.compared(1);
+            }
+            return array[a] < array[c] ? c : a;
+        }
+        if (array[a] < array[c]){
+            return a;
+        }
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(1);
+        }
+        return array[b] < array[c] ? c : b;
+    }
+
+    /**
+     * 所有划分的元素移动都经过这里，开启SortMetrics时在这里统计
+     */
+    private static void swap(int[] array, int i, int j){
+        int tap = array[i];
+        array[i] = array[j];
+        array[j] = tap;
+        if (SortMetrics.ENABLED){
+            SortMetrics.moved(2);
+        }
+    }
+
+    private static int log2(int n){
+        return 31 - Integer.numberOfLeadingZeros(n);
+    }
+
+
+    //================三路划分（Bentley-McIlroy）=========================
+
+    /**
+     * 三路划分的快速排序，参数与QuickSort相同
+     * 与基准相等的元素在扫描时先交换到区间两端，划分结束后再换到中间，
+     * 一次划分得到 小于 | 等于 | 大于 三段，等于的那段不再递归。
+     * 只有少数几个不同取值的数据（状态码、枚举序号等）接近线性时间
+     * 同样只递归较短的一边，层数超过2*log2(n)时改用堆排序
+     * @param array
+     * @param start
+     * @param end
+     */
+    public static void threeWaySort(int[] array, int start, int end){
+        if (start >= end){
+            return;
+        }
+        threeWaySort(array, start, end, 2 * log2(end - start + 1), new int[SmallSort.SCRATCH_SIZE]);
+    }
+
+    private static void threeWaySort(int[] array, int start, int end, int depthLimit, int[] scratch){
+        if (SortMetrics.ENABLED){
+            SortMetrics.enter();
+        }
+        while (end - start + 1 > SMALL_SORT_THRESHOLD){
+            if (depthLimit == 0){
+                Heap.heapSort(array, start, end);
+                if (SortMetrics.ENABLED){
+                    SortMetrics.exit();
+                }
+                return;
+            }
+            depthLimit--;
+            long startNanos = SortMetrics.ENABLED ? System.nanoTime() : 0;
+            swap(array, start, choosePivot(array, start, end));
+
+            int temp = array[start];
+            int left = start, right = end + 1;
+            //[start, p]和[q, end]中是与基准相等的元素
+            int p = start, q = end + 1;
+            long comparisons = 0;
+            while (true){
+                do {
+                    left++;
+                    if (SortMetrics.ENABLED){
+                        comparisons += left < end ? 1 : 0;
+                    }
+                } while (left < end && array[left] < temp);
+                do {
+                    right--;
+                    if (SortMetrics.ENABLED){
+                        comparisons++;
+                    }
+                } while (temp < array[right]);
+                if (SortMetrics.ENABLED){
+                    comparisons += left == right ? 1 : 0;
+                }
+                if (left == right && array[left] == temp){
+                    swap(array, ++p, left);
+                }
+                if (left >= right){
+                    break;
+                }
+                swap(array, left, right);
+                if (SortMetrics.ENABLED){
+                    comparisons += 2;
+                }
+                if (array[left] == temp){
+                    swap(array, ++p, left);
+                }
+                if (array[right] == temp){
+                    swap(array, --q, right);
+                }
+            }
+            //把两端相等的元素换到中间
+            left = right + 1;
+            for (int k = start; k <= p; k++){
+                swap(array, k, right--);
+            }
+            for (int k = end; k >= q; k--){
+                swap(array, k, left++);
+            }
+            if (SortMetrics.ENABLED){
+                SortMetrics.compared(comparisons);
+                SortMetrics.phase(SortMetrics.Phase.PARTITION, startNanos);
+            }
+            //此时[start, right]小于基准，[right + 1, left - 1]等于基准，[left, end]大于基准
+            if (right - start < end - left){
+                threeWaySort(array, start, right, depthLimit, scratch);
+                start = left;
+            } else {
+                threeWaySort(array, left, end, depthLimit, scratch);
+                end = right;
+            }
+        }
+        SmallSort.sort(array, start, end + 1, scratch);
+        if (SortMetrics.ENABLED){
+            SortMetrics.exit();
+        }
+    }
+
+
+    //================块划分（BlockQuicksort）=========================
+
+    /**
+     * 块划分每次处理的元素个数
+     */
+    private static final int BLOCK_SIZE = 128;
+
+    /**
+     * 使用块划分的内省排序，参数与QuickSort相同
+     * 随机数据上QuickSort的while扫描条件大约一半会预测失败，块划分先把比较结果无分支地记录下来再批量交换
+     * @param array
+     * @param start
+     * @param end
+     */
+    public static void blockQuickSort(int[] array, int start, int end){
+        if (start >= end){
+            return;
+        }
+        blockQuickSort(array, start, end, 2 * log2(end - start + 1), new int[BLOCK_SIZE], new int[BLOCK_SIZE],
+                new int[SmallSort.SCRATCH_SIZE]);
+    }
+
+    private static void blockQuickSort(int[] array, int start, int end, int depthLimit, int[] offsetsLeft, int[] offsetsRight,
+                                       int[] scratch){
+        if (SortMetrics.ENABLED){
+            SortMetrics.enter();
+        }
+        while (end - start + 1 > SMALL_SORT_THRESHOLD){
+            if (depthLimit == 0){
+                Heap.heapSort(array, start, end);
+                if (SortMetrics.ENABLED){
+                    SortMetrics.exit();
+                }
+                return;
+            }
+            depthLimit--;
+            int p = blockPartition(array, start, end, offsetsLeft, offsetsRight);
+            if (p - start < end - p){
+                blockQuickSort(array, start, p - 1, depthLimit, offsetsLeft, offsetsRight, scratch);
+                start = p + 1;
+            } else {
+                blockQuickSort(array, p + 1, end, depthLimit, offsetsLeft, offsetsRight, scratch);
+                end = p - 1;
+            }
+        }
+        SmallSort.sort(array, start, end + 1, scratch);
+        if (SortMetrics.ENABLED){
+            SortMetrics.exit();
+        }
+    }
+
+    /**
+     * 块划分，返回基准最终的下标
+     * 1. 左右各取一块，逐个比较，把需要交换的元素的偏移量写入缓冲区；
+     *    写入总是发生，只有计数按比较结果加0或1，循环体中没有依赖数据的分支
+     * 2. 两边缓冲区中较少的那个数目的元素成对交换
+     * 3. 某一边的缓冲区用完后该边前进一块
+     * 剩余不足两块的部分用普通的双向扫描完成
+     * @param array
+     * @param start
+     * @param end
+     * @param offsetsLeft 长度为BLOCK_SIZE的缓冲区
+     * @param offsetsRight 长度为BLOCK_SIZE的缓冲区
+     * @return
+     */
+    static int blockPartition(int[] array, int start, int end, int[] offsetsLeft, int[] offsetsRight){
+        long startNanos = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        long comparisons = 0;
+        swap(array, start, choosePivot(array, start, end));
+        int temp = array[start];
+        int left = start + 1, right = end;
+        int numLeft = 0, numRight = 0, startLeft = 0, startRight = 0;
+
+        while (right - left + 1 > 2 * BLOCK_SIZE){
+            if (numLeft == 0){
+                startLeft = 0;
+                for (int i = 0; i < BLOCK_SIZE; i++){
+                    offsetsLeft[numLeft] = i;
+                    numLeft += array[left + i] >= temp ? 1 : 0;
+                }
+                if (SortMetrics.ENABLED){
+                    comparisons += BLOCK_SIZE;
+                }
+            }
+            if (numRight == 0){
+                startRight = 0;
+                for (int i = 0; i < BLOCK_SIZE; i++){
+                    offsetsRight[numRight] = i;
+                    numRight += temp >= array[right - i] ? 1 : 0;
+                }
+                if (SortMetrics.ENABLED){
+                    comparisons += BLOCK_SIZE;
+                }
+            }
+            int num = Math.min(numLeft, numRight);
+            for (int k = 0; k < num; k++){
+                swap(array, left + offsetsLeft[startLeft + k], right - offsetsRight[startRight + k]);
+            }
+            numLeft -= num;
+            numRight -= num;
+            startLeft += num;
+            startRight += num;
+            if (numLeft == 0){
+                left += BLOCK_SIZE;
+            }
+            if (numRight == 0){
+                right -= BLOCK_SIZE;
+            }
+        }
+
+        //left左边的都不大于基准，right右边的都不小于基准，对中间剩下的部分做普通划分
+        int i = left - 1, j = right + 1;
+        while (true){
+            do {
+                i++;
+                if (SortMetrics.ENABLED){
+                    comparisons += i <= right ? 1 : 0;
+                }
+            } while (i <= right && array[i] < temp);
+            do {
+                j--;
+                if (SortMetrics.ENABLED){
+                    comparisons += j >= left ? 1 : 0;
+                }
+            } while (j >= left && temp < array[j]);
+            if (i >= j){
+                break;
+            }
+            swap(array, i, j);
+        }
+        swap(array, start, j);
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(comparisons);
+            SortMetrics.phase(SortMetrics.Phase.PARTITION, startNanos);
+        }
+        return j;
+    }
+
+
+    //================选择第k小的元素（quickselect / nth_element）=========================
+
+    /**
+     * 返回第k小（从0开始）的元素
+     * 执行后array[k]就是该元素，左边的都不大于它，右边的都不小于它
+     * @param array
+     * @param k
+     * @return
+     */
+    public static int select(int[] array, int k){
+        return select(array, 0, array.length - 1, k);
+    }
+
+    /**
+     * 在区间[start, end]中选择，k是整个数组中的下标
+     * 先用快速排序的划分逐步缩小范围，平均O(n)；划分次数超过2*log2(n)说明基准选得不好，
+     * 之后改用中位数的中位数（median of medians）选基准，保证最坏O(n)
+     * @param array
+     * @param start
+     * @param end
+     * @param k
+     * @return
+     */
+    public static int select(int[] array, int start, int end, int k){
+        if (k < start || k > end){
+            throw new IndexOutOfBoundsException("k = " + k + ", range [" + start + ", " + end + "]");
+        }
+        int depthLimit = 2 * log2(end - start + 1);
+        while (end - start + 1 > SMALL_SORT_THRESHOLD){
+            int p;
+            if (depthLimit > 0){
+                depthLimit--;
+                p = partition(array, start, end);
+            } else {
+                p = partitionAround(array, start, end, medianOfMedians(array, start, end));
+            }
+            if (k == p){
+                return array[k];
+            }
+            if (k < p){
+                end = p - 1;
+            } else {
+                start = p + 1;
+            }
+        }
+        SmallSort.sort(array, start, end + 1);
+        return array[k];
+    }
+
+    /**
+     * 一次递归同时选出多个次序统计量，只进入包含所求下标的那些子区间
+     * @param array
+     * @param ranks 要求的下标（从0开始），可以无序、可以重复
+     * @return 与ranks一一对应的元素
+     */
+    public static int[] selectAll(int[] array, int[] ranks){
+        int[] sorted = ranks.clone();
+        Insert.insertionSort(sorted, 0, sorted.length - 1);
+        for (int r : sorted){
+            if (r < 0 || r >= array.length){
+                throw new IndexOutOfBoundsException("rank " + r + ", length " + array.length);
+            }
+        }
+        if (sorted.length > 0){
+            selectAll(array, 0, array.length - 1, sorted, 0, sorted.length - 1, 2 * log2(array.length),
+                    new int[SmallSort.SCRATCH_SIZE]);
+        }
+        int[] result = new int[ranks.length];
+        for (int i = 0; i < ranks.length; i++){
+            result[i] = array[ranks[i]];
+        }
+        return result;
+    }
+
+    /**
+     * 按最近秩法求分位数，例如quantiles(array, 0.5, 0.95, 0.99)
+     * @param array
+     * @param qs 取值在[0, 1]之间
+     * @return
+     */
+    public static int[] quantiles(int[] array, double... qs){
+        int n = array.length;
+        int[] ranks = new int[qs.length];
+        for (int i = 0; i < qs.length; i++){
+            int rank = (int) Math.ceil(qs[i] * n) - 1;
+            ranks[i] = Math.max(0, Math.min(n - 1, rank));
+        }
+        return selectAll(array, ranks);
+    }
+
+    /**
+     * ranks[low, high]是升序的下标，都落在[start, end]中
+     */
+    private static void selectAll(int[] array, int start, int end, int[] ranks, int low, int high, int depthLimit,
+                                  int[] scratch){
+        while (low <= high){
+            if (end - start + 1 <= SMALL_SORT_THRESHOLD){
+                SmallSort.sort(array, start, end + 1, scratch);
+                return;
+            }
+            int p;
+            if (depthLimit > 0){
+                depthLimit--;
+                p = partition(array, start, end);
+            } else {
+                p = partitionAround(array, start, end, medianOfMedians(array, start, end));
+            }
+            //ranks中小于p的属于左边，大于p的属于右边，等于p的已经就位
+            int mid = low;
+            while (mid <= high && ranks[mid] < p){
+                mid++;
+            }
+            int right = mid;
+            while (right <= high && ranks[right] == p){
+                right++;
+            }
+            //较短的一边递归，较长的一边循环
+            if (mid - low < high - right + 1){
+                selectAll(array, start, p - 1, ranks, low, mid - 1, depthLimit, scratch);
+                start = p + 1;
+                low = right;
+            } else {
+                selectAll(array, p + 1, end, ranks, right, high, depthLimit, scratch);
+                end = p - 1;
+                high = mid - 1;
+            }
+        }
+    }
+
+    /**
+     * 中位数的中位数：每5个一组取中位数放到区间开头，再递归选出这些中位数的中位数，返回它的下标
+     * 以它为基准划分时两边至少各有约30%的元素
+     */
+    static int medianOfMedians(int[] array, int start, int end){
+        int len = end - start + 1;
+        if (len <= 5){
+            Insert.insertionSort(array, start, end);
+            return start + (len - 1) / 2;
+        }
+        int dst = start;
+        for (int i = start; i <= end; i += 5){
+            int groupEnd = Math.min(i + 4, end);
+            Insert.insertionSort(array, i, groupEnd);
+            swap(array, i + (groupEnd - i) / 2, dst++);
+        }
+        int mid = start + (dst - start - 1) / 2;
+        //只用中位数的中位数递归选择，保证线性
+        int low = start, high = dst - 1;
+        while (high - low + 1 > 5){
+            int p = partitionAround(array, low, high, medianOfMedians(array, low, high));
+            if (mid == p){
+                return mid;
+            }
+            if (mid < p){
+                high = p - 1;
+            } else {
+                low = p + 1;
+            }
+        }
+        Insert.insertionSort(array, low, high);
+        return mid;
     }
 
 }
@@ -0,0 +1,127 @@
+package the_sorting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 希尔排序的增量序列
+ * 除SHELL外都在类加载时算好int范围内的全部增量，按升序保存，排序时不再分配内存
+ */
+public enum GapSequence {
+
+    /**
+     * Shell最初的序列n/2, n/4, ..., 1，与n有关，最坏O(n^2)
+     */
+    SHELL,
+
+    /**
+     * Ciura（2001）实验得到的1, 4, 10, 23, 57, 132, 301, 701, 1750，之后按2.25倍延伸
+     */
+    CIURA {
+        @Override
+        List<Long> generate() {
+            List<Long> gaps = new ArrayList<>();
+            for (long g : new long[]{1, 4, 10, 23, 57, 132, 301, 701, 1750}){
+                gaps.add(g);
+            }
+            for (long g = (long) (1750 * 2.25); g < Integer.MAX_VALUE; g = (long) (g * 2.25)){
+                gaps.add(g);
+            }
+            return gaps;
+        }
+    },
+
+    /**
+     * Tokuda（1992）：ceil((9 * (9/4)^(k-1) - 4) / 5)，即1, 4, 9, 20, 46, 103, ...
+     */
+    TOKUDA {
+        @Override
+        List<Long> generate() {
+            List<Long> gaps = new ArrayList<>();
+            for (double p = 9; ; p *= 2.25){
+                long g = (long) Math.ceil((p - 4) / 5);
+                if (g >= Integer.MAX_VALUE){
+                    break;
+                }
+                gaps.add(g);
+            }
+            return gaps;
+        }
+    },
+
+    /**
+     * Sedgewick（1986）：1, 8, 23, 77, 281, ...，即4^k + 3 * 2^(k-1) + 1，最坏O(n^(4/3))
+     */
+    SEDGEWICK {
+        @Override
+        List<Long> generate() {
+            List<Long> gaps = new ArrayList<>();
+            gaps.add(1L);
+            for (int k = 1; ; k++){
+                long g = (1L << (2 * k)) + 3L * (1L << (k - 1)) + 1;
+                if (g >= Integer.MAX_VALUE){
+                    break;
+                }
+                gaps.add(g);
+            }
+            return gaps;
+        }
+    },
+
+    /**
+     * Pratt（1971）：所有形如2^p * 3^q的数，最坏O(n log² n)，但趟数多，实际常数大
+     */
+    PRATT {
+        @Override
+        List<Long> generate() {
+            List<Long> gaps = new ArrayList<>();
+            for (long p = 1; p < Integer.MAX_VALUE; p *= 2){
+                for (long g = p; g < Integer.MAX_VALUE; g *= 3){
+                    gaps.add(g);
+                }
+            }
+            return gaps;
+        }
+    };
+
+    /**
+     * 升序的增量，SHELL为null
+     */
+    final int[] gaps;
+
+    GapSequence(){
+        List<Long> list = generate();
+        if (list == null){
+            gaps = null;
+            return;
+        }
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++){
+            array[i] = (int) (long) list.get(i);
+        }
+        Arrays.sort(array);
+        gaps = array;
+    }
+
+    List<Long> generate(){
+        return null;
+    }
+
+    /**
+     * 小于n的最大增量在gaps中的下标，n <= 1时为-1
+     */
+    int largestBelow(int n){
+        int low = 0, high = gaps.length;
+        while (low < high){
+            int mid = (low + high) >>> 1;
+            if (gaps[mid] < n){
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+
+}
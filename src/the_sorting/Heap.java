@@ -24,30 +24,113 @@ public class Heap {
             int temp = array[0];
             array[0] = array[i];
             array[i] = temp;
+            if (SortMetrics.ENABLED){
+                SortMetrics.moved(2);
+            }
             heapAdjust(array, i, 0);
         }
     }
 
+    /**
+     * 对区间[start, end]做堆排序，供其他排序在子区间上调用
+     * @param array
+     * @param start
+     * @param end
+     */
+    public static void heapSort(int[] array, int start, int end){
+        int len = end - start + 1;
+        for (int i = len / 2 - 1; i >= 0; i--){
+            heapAdjust(array, start, len, i);
+        }
+        for (int i = len - 1; i >= 1; i--){
+            int temp = array[start];
+            array[start] = array[start + i];
+            array[start + i] = temp;
+            if (SortMetrics.ENABLED){
+                SortMetrics.moved(2);
+            }
+            heapAdjust(array, start, i, 0);
+        }
+    }
+
     private static void heapAdjust(int[] array, int len, int i){
-        int k = i, temp = array[i], index = 2 * k + 1;
+        heapAdjust(array, 0, len, i);
+    }
+
+    /**
+     * 以offset为堆顶下标，在长度为len的堆中把第i个节点向下调整
+     */
+    static void heapAdjust(int[] array, int offset, int len, int i){
+        int k = i, temp = array[offset + i], index = 2 * k + 1;
+        long comparisons = 0;
         while (index < len){
             if (index + 1 < len){
-                if (array[index] < array[index + 1]){
+                if (SortMetrics.ENABLED){
+                    comparisons++;
+                }
+                if (array[offset + index] < array[offset + index + 1]){
                     index = index + 1;
                 }
             }
-            if (array[index] > temp){
-                array[k] = array[index];
+            if (SortMetrics.ENABLED){
+                comparisons++;
+            }
+            if (array[offset + index] > temp){
+                array[offset + k] = array[offset + index];
                 k = index;
                 index = 2 * k + 1;
             } else {
                 break;
             }
         }
-        array[k] = temp;
+        array[offset + k] = temp;
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(comparisons);
+            //下沉了几层就移动几次，加上最后放回temp
+            SortMetrics.moved(depth(k) - depth(i) + 1);
+        }
     }
 
+    /**
+     * long[]版本的向下调整
+     */
+    static void heapAdjust(long[] array, int offset, int len, int i){
+        int k = i, index = 2 * k + 1;
+        long temp = array[offset + i];
+        long comparisons = 0;
+        while (index < len){
+            if (index + 1 < len){
+                if (SortMetrics.ENABLED){
+                    comparisons++;
+                }
+                if (array[offset + index] < array[offset + index + 1]){
+                    index = index + 1;
+                }
+            }
+            if (SortMetrics.ENABLED){
+                comparisons++;
+            }
+            if (array[offset + index] > temp){
+                array[offset + k] = array[offset + index];
+                k = index;
+                index = 2 * k + 1;
+            } else {
+                break;
+            }
+        }
+        array[offset + k] = temp;
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(comparisons);
+            //下沉了几层就移动几次，加上最后放回temp
+            SortMetrics.moved(depth(k) - depth(i) + 1);
+        }
+    }
 
-
+    /**
+     * 第i个节点所在的层数，根节点是第0层
+     */
+    private static int depth(int i){
+        return 31 - Integer.numberOfLeadingZeros(i + 1);
+    }
 
 }
@@ -5,9 +5,34 @@ package the_sorting;
  */
 public class Hill {
 
+    /**
+     * 增量不小于它时按列分块处理
+     */
+    private static final int TILE_MIN_GAP = 1 << 14;
+
+    /**
+     * 分块时一块中的元素个数，约为L2缓存大小
+     */
+    private static final int TILE_ELEMENTS = 1 << 18;
+
+    /**
+     * 每块至少的列数，每行至少连续读写4KB，硬件预取仍然有效
+     */
+    private static final int TILE_MIN_COLUMNS = 1 << 10;
+
+    private static final int TUNE_MAX_SIZE = 1 << 17;
+
+    private static final int TUNE_ROUNDS = 2;
+
+    /**
+     * 每个规模档位调优的结果
+     */
+    private static final GapSequence[] TUNED = new GapSequence[33];
+
     public static void main(String[] args) {
         int[] array = {38, 29, 14, 35, 22, 61, 35, 59, 36, 2, -1, -12};
         shellsort(array);
+        IntSink.print(array);
     }
 
 
@@ -26,9 +51,133 @@ public class Hill {
             }
             gap /= 2;
         }
+    }
+
+    /**
+     * 对区间[from, to)做希尔排序，不输出结果，使用Ciura序列
+     * @param array
+     * @param from
+     * @param to
+     */
+    public static void shellsort(int[] array, int from, int to){
+        shellsort(array, from, to, GapSequence.CIURA);
+    }
 
-        for (int a: array){
-            System.out.println(a);
+    /**
+     * 使用指定的增量序列对区间[from, to)做希尔排序，不分配内存
+     * 每个增量做一趟h-排序：h列各自做插入排序。增量很大时每列只有少数几个元素，但一列中相邻元素相隔h个位置，
+     * 按下标顺序处理时向前插入要访问很远的行，所以增量不小于TILE_MIN_GAP时按列分块：
+     * 每次只处理相邻的若干列，块内所有行的数据能放进缓存，各列互不影响，结果与逐个下标处理相同
+     * @param array
+     * @param from
+     * @param to
+     * @param sequence
+     */
+    public static void shellsort(int[] array, int from, int to, GapSequence sequence){
+        int n = to - from;
+        if (sequence == GapSequence.SHELL){
+            for (int gap = n / 2; gap > 0; gap /= 2){
+                hSort(array, from, to, gap);
+            }
+            return;
+        }
+        int[] gaps = sequence.gaps;
+        for (int k = sequence.largestBelow(n); k >= 0; k--){
+            hSort(array, from, to, gaps[k]);
+        }
+    }
+
+    /**
+     * 使用当前机器上对这个规模最快的增量序列排序，第一次遇到某个规模时先调用tune测量
+     * @param array
+     * @param from
+     * @param to
+     */
+    public static void tunedSort(int[] array, int from, int to){
+        shellsort(array, from, to, tuned(to - from));
+    }
+
+    /**
+     * 规模n所在的档位（按log2(n)划分）已经测量过时直接返回结果，否则先测量
+     * @param n
+     * @return
+     */
+    public static GapSequence tuned(int n){
+        int level = 32 - Integer.numberOfLeadingZeros(Math.max(1, n));
+        GapSequence best = TUNED[level];
+        if (best == null){
+            best = tune(n);
+            TUNED[level] = best;
+        }
+        return best;
+    }
+
+    /**
+     * 经验调优：用n个随机数（最多TUNE_MAX_SIZE个）对每个序列预热后各排序TUNE_ROUNDS次，取最短时间最小的序列
+     * @param n
+     * @return
+     */
+    public static GapSequence tune(int n){
+        int size = Math.max(2, Math.min(n, TUNE_MAX_SIZE));
+        int[] data = Distribution.RANDOM.generate(size, n);
+        int[] work = new int[size];
+        GapSequence best = GapSequence.CIURA;
+        long bestTime = Long.MAX_VALUE;
+        for (GapSequence sequence : GapSequence.values()){
+            long time = Long.MAX_VALUE;
+            for (int round = 0; round <= TUNE_ROUNDS; round++){
+                System.arraycopy(data, 0, work, 0, size);
+                long start = System.nanoTime();
+                shellsort(work, 0, size, sequence);
+                long elapsed = System.nanoTime() - start;
+                //第0次是预热，不计入
+                if (round > 0){
+                    time = Math.min(time, elapsed);
+                }
+            }
+            if (time < bestTime){
+                bestTime = time;
+                best = sequence;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 对[from, to)做一趟增量为gap的插入排序
+     */
+    private static void hSort(int[] array, int from, int to, int gap){
+        int rows = (to - from + gap - 1) / gap;
+        if (gap < TILE_MIN_GAP || rows < 3){
+            for (int i = from + gap; i < to; i++){
+                insertGapped(array, from, i, gap);
+            }
+            return;
+        }
+        //每块的列数，让块内所有行一共约TILE_ELEMENTS个元素
+        int block = Math.max(TILE_MIN_COLUMNS, TILE_ELEMENTS / rows);
+        for (int column = 0; column < gap; column += block){
+            int columnEnd = Math.min(gap, column + block);
+            for (int row = from + gap; row < to; row += gap){
+                for (int i = row + column, end = Math.min(to, row + columnEnd); i < end; i++){
+                    insertGapped(array, from, i, gap);
+                }
+            }
+        }
+    }
+
+    private static void insertGapped(int[] array, int from, int i, int gap){
+        int temp = array[i];
+        int perIndex = i - gap;
+        while (perIndex >= from && array[perIndex] > temp){
+            array[perIndex + gap] = array[perIndex];
+            perIndex -= gap;
+        }
+        array[perIndex + gap] = temp;
+        if (SortMetrics.ENABLED){
+            int shifts = (i - gap - perIndex) / gap;
+            SortMetrics.compared(perIndex >= from ? shifts + 1 : shifts);
+            SortMetrics.moved(shifts + 1);
         }
     }
 
@@ -8,6 +8,7 @@ public class Insert {
     public static void main(String[] args) {
         int[] array = {38, 29, 14, 35, 22, 61, 35, 59, 36, 2, -1, -12};
         setInsertionSort(array, array.length);
+        IntSink.print(array);
     }
 
 
@@ -26,9 +27,28 @@ public class Insert {
             //把temp放到空位上
             array[leftindex + 1] = temp;
         }
+    }
 
-        for (int a: array){
-            System.out.println(a);
+    /**
+     * 对区间[start, end]做插入排序，不输出结果，作为其他排序小区间的收尾
+     * @param array
+     * @param start
+     * @param end
+     */
+    public static void insertionSort(int[] array, int start, int end){
+        for (int index = start + 1; index <= end; index++){
+            int temp = array[index];
+            int leftindex = index - 1;
+            while (leftindex >= start && array[leftindex] > temp){
+                array[leftindex + 1] = array[leftindex];
+                leftindex--;
+            }
+            array[leftindex + 1] = temp;
+            if (SortMetrics.ENABLED){
+                int shifts = index - 1 - leftindex;
+                SortMetrics.compared(leftindex >= start ? shifts + 1 : shifts);
+                SortMetrics.moved(shifts + 1);
+            }
         }
     }
 
@@ -0,0 +1,82 @@
+package the_sorting;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 包装一个Sorter，每次排序前后测量耗时和分配的字节数，计入SortMetrics，同时单独保留这个算法的数据
+ * 分配的字节数只算调用线程，delegate.parallel()为true时再加上ForkJoinPool的工作线程，见SortMetrics.AllocationMark
+ * 测量本身每次排序只有两次System.nanoTime()和几次ThreadMXBean查询，不进入算法内部，所以不需要重新编译
+ */
+public class InstrumentedSorter implements Sorter {
+
+    private final Sorter delegate;
+    private final LongAdder sorts = new LongAdder();
+    private final LongAdder wallNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    public InstrumentedSorter(Sorter delegate){
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+    @Override
+    public boolean parallel() {
+        return delegate.parallel();
+    }
+
+    @Override
+    public void sort(int[] array, int from, int to) {
+        SortMetrics.AllocationMark mark = new SortMetrics.AllocationMark(delegate.parallel());
+        long start = System.nanoTime();
+        delegate.sort(array, from, to);
+        record(start, mark);
+    }
+
+    @Override
+    public void sort(long[] array, int from, int to) {
+        SortMetrics.AllocationMark mark = new SortMetrics.AllocationMark(delegate.parallel());
+        long start = System.nanoTime();
+        delegate.sort(array, from, to);
+        record(start, mark);
+    }
+
+    @Override
+    public void sort(double[] array, int from, int to) {
+        SortMetrics.AllocationMark mark = new SortMetrics.AllocationMark(delegate.parallel());
+        long start = System.nanoTime();
+        delegate.sort(array, from, to);
+        record(start, mark);
+    }
+
+    private void record(long start, SortMetrics.AllocationMark mark){
+        long elapsed = System.nanoTime() - start;
+        long allocated = mark.allocated();
+        sorts.increment();
+        wallNanos.add(elapsed);
+        allocatedBytes.add(allocated);
+        SortMetrics.sorted(elapsed, allocated);
+    }
+
+    public long getSorts() {
+        return sorts.sum();
+    }
+
+    public long getWallNanos() {
+        return wallNanos.sum();
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    @Override
+    public String toString() {
+        return name() + "{sorts=" + getSorts() + ", wallNanos=" + getWallNanos()
+                + ", allocatedBytes=" + getAllocatedBytes() + "}";
+    }
+
+}
@@ -0,0 +1,211 @@
+package the_sorting;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 输出排序结果，每行一个整数
+ * System.out.println每个元素都要加锁、把int转成String再编码，还可能每行刷新一次，输出的时间远远超过排序本身
+ * 1. 整数直接格式化为ASCII写入一个复用的字节缓冲区，不创建String
+ * 2. 缓冲区满了才写一次通道，写文件时是FileChannel，写标准输出时包装FileDescriptor.out
+ * 3. 结果需要写入日志时用new IntSink(new AsyncLoggerChannel(logger))，由后台线程逐行写入log4j，排序线程只负责格式化和入队
+ * 不是线程安全的，一个IntSink只在一个线程中使用
+ */
+public class IntSink implements Closeable, Flushable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * int最长11个字符（"-2147483648"），加上分隔符
+     */
+    private static final int MAX_INT_LENGTH = 12;
+
+    private static final byte[] MIN_VALUE = Integer.toString(Integer.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * 0到99的十位和个位
+     */
+    private static final byte[] TENS = new byte[100];
+    private static final byte[] ONES = new byte[100];
+
+    static {
+        for (int i = 0; i < 100; i++){
+            TENS[i] = (byte) ('0' + i / 10);
+            ONES[i] = (byte) ('0' + i % 10);
+        }
+    }
+
+    private final WritableByteChannel channel;
+    private final byte[] bytes;
+    private final ByteBuffer buffer;
+    private final boolean closeChannel;
+    private int position;
+
+    public static void main(String[] args) throws IOException {
+        int[] array = Distribution.RANDOM.generate(1 << 20, 42);
+        SortAlgorithm.INTRO.sort(array);
+        print(Arrays.copyOf(array, 12));
+    }
+
+    /**
+     * @param channel 写入的通道
+     */
+    public IntSink(WritableByteChannel channel){
+        this(channel, DEFAULT_BUFFER_SIZE, true);
+    }
+
+    /**
+     * @param channel 写入的通道
+     * @param bufferSize 缓冲区字节数
+     * @param closeChannel close()时是否关闭通道
+     */
+    public IntSink(WritableByteChannel channel, int bufferSize, boolean closeChannel){
+        if (bufferSize < MAX_INT_LENGTH){
+            throw new IllegalArgumentException("bufferSize must be at least " + MAX_INT_LENGTH + ": " + bufferSize);
+        }
+        this.channel = channel;
+        this.bytes = new byte[bufferSize];
+        this.buffer = ByteBuffer.wrap(bytes);
+        this.closeChannel = closeChannel;
+    }
+
+    /**
+     * 写入文件，文件已经存在时覆盖
+     */
+    public static IntSink open(Path path) throws IOException {
+        return new IntSink(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /**
+     * 写入标准输出，close()时只刷新，不关闭标准输出
+     */
+    public static IntSink stdout(){
+        System.out.flush();
+        return new IntSink(Channels.newChannel(new FileOutputStream(FileDescriptor.out)), DEFAULT_BUFFER_SIZE, false);
+    }
+
+    /**
+     * 把数组输出到标准输出，每行一个，用来替代main中的System.out.println循环
+     * @param array
+     */
+    public static void print(int[] array){
+        try (IntSink sink = stdout()){
+            sink.writeAll(array, 0, array.length);
+        } catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 写入一个整数和换行
+     */
+    public void writeLine(int value) throws IOException {
+        if (bytes.length - position < MAX_INT_LENGTH){
+            drain();
+        }
+        position = format(value, bytes, position);
+        bytes[position++] = '\n';
+    }
+
+    /**
+     * 写入区间[from, to)中的整数，每行一个
+     */
+    public void writeAll(int[] array, int from, int to) throws IOException {
+        byte[] b = bytes;
+        int limit = b.length - MAX_INT_LENGTH;
+        int p = position;
+        for (int i = from; i < to; i++){
+            if (p > limit){
+                position = p;
+                drain();
+                p = position;
+            }
+            p = format(array[i], b, p);
+            b[p++] = '\n';
+        }
+        position = p;
+    }
+
+    /**
+     * 把缓冲区中的内容写入通道
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            if (closeChannel){
+                channel.close();
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.clear().limit(position);
+        while (buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        position = 0;
+    }
+
+    /**
+     * 把value的十进制表示写入b[p...]，返回写完后的位置
+     * 先算出位数，再从低位往高位填，每次除以100处理两位
+     */
+    static int format(int value, byte[] b, int p){
+        if (value == Integer.MIN_VALUE){
+            for (int i = 0; i < MIN_VALUE.length; i++){
+                b[p + i] = MIN_VALUE[i];
+            }
+            return p + MIN_VALUE.length;
+        }
+        if (value < 0){
+            b[p++] = '-';
+            value = -value;
+        }
+        int end = p + digits(value);
+        int i = end;
+        while (value >= 100){
+            int q = value / 100;
+            int r = value - q * 100;
+            value = q;
+            b[--i] = ONES[r];
+            b[--i] = TENS[r];
+        }
+        b[--i] = ONES[value];
+        if (value >= 10){
+            b[--i] = TENS[value];
+        }
+        return end;
+    }
+
+    /**
+     * 非负整数的十进制位数
+     */
+    private static int digits(int value){
+        int n = 1;
+        for (int limit = 10; n < 10 && value >= limit; limit *= 10){
+            n++;
+        }
+        return n;
+    }
+
+}
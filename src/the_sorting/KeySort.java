@@ -0,0 +1,102 @@
+package the_sorting;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 按提取出的基本类型键对对象数组排序
+ * 用Comparator排序时每次比较都要重新计算键，键的计算代价高（例如需要解析字段）时很慢。
+ * 这里每个对象的键只提取一次，存入基本类型数组，用基数排序对(键, 下标)排序，最后按得到的排列原地移动对象。
+ * 排序是稳定的
+ */
+public class KeySort {
+
+    /**
+     * 元素个数小于它时用内省排序求排列，省掉基数排序的辅助数组
+     */
+    private static final int RADIX_THRESHOLD = 64;
+
+    public static void main(String[] args) {
+        String[] array = {"38", "29", "14", "35", "22", "61", "35", "59", "36", "2", "-1", "-12"};
+        sortByInt(array, Integer::parseInt);
+        for (String a : array){
+            System.out.println(a);
+        }
+    }
+
+    /**
+     * @param array
+     * @param key 每个元素只调用一次
+     * @param <T>
+     */
+    public static <T> void sortByInt(T[] array, ToIntFunction<? super T> key){
+        int n = array.length;
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++){
+            keys[i] = key.applyAsInt(array[i]);
+        }
+        int[] perm;
+        if (n < RADIX_THRESHOLD){
+            perm = ArgSort.intro(keys);
+        } else {
+            for (int i = 0; i < n; i++){
+                keys[i] ^= Integer.MIN_VALUE;
+            }
+            perm = ArgSort.radixUnsigned(keys);
+        }
+        ArgSort.apply(perm, array);
+    }
+
+    /**
+     * @param array
+     * @param key 每个元素只调用一次
+     * @param <T>
+     */
+    public static <T> void sortByLong(T[] array, ToLongFunction<? super T> key){
+        int n = array.length;
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++){
+            keys[i] = key.applyAsLong(array[i]);
+        }
+        int[] perm;
+        if (n < RADIX_THRESHOLD){
+            perm = ArgSort.intro(keys);
+        } else {
+            for (int i = 0; i < n; i++){
+                keys[i] ^= Long.MIN_VALUE;
+            }
+            perm = ArgSort.radixUnsigned(keys);
+        }
+        ArgSort.apply(perm, array);
+    }
+
+    /**
+     * 浮点数键按IEEE全序：-0.0排在0.0前面，NaN排在最后
+     * @param array
+     * @param key 每个元素只调用一次
+     * @param <T>
+     */
+    public static <T> void sortByDouble(T[] array, ToDoubleFunction<? super T> key){
+        int n = array.length;
+        double[] keys = new double[n];
+        for (int i = 0; i < n; i++){
+            keys[i] = key.applyAsDouble(array[i]);
+        }
+        int[] perm = n < RADIX_THRESHOLD ? ArgSort.intro(keys) : ArgSort.radix(keys);
+        ArgSort.apply(perm, array);
+    }
+
+    /**
+     * 键无法表示为基本类型时退回到比较器排序
+     * @param array
+     * @param comparator
+     * @param <T>
+     */
+    public static <T> void sort(T[] array, Comparator<? super T> comparator){
+        Arrays.sort(array, comparator);
+    }
+
+}
@@ -1,9 +1,28 @@
 package the_sorting;
 
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class Merge {
 
+    /**
+     * 并行归并的默认阈值，区间长度小于它时不再拆分任务，直接在当前线程内完成
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 13;
+
+    /**
+     * 小区间直接使用SmallSort的长度
+     */
+    private static final int SMALL_SORT_THRESHOLD = 32;
+
+    /**
+     * 原地归并排序叶子的长度，不超过16时SmallSort只用排序网络，不分配内存
+     */
+    private static final int IN_PLACE_LEAF = 16;
+
+
     public static void main(String[] args) {
         int[] array = {38, 29, 14, 35, 22, 61, 35, 59, 36, 2, -1, -12};
 //        int[] aa = MergeSort(array, 0, array.length-1);
@@ -49,6 +68,9 @@ public class Merge {
                 temp[k++] = array[j++];
             }
         }
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(k);
+        }
         //把左边剩余的数移入数组
         while (i <= mid){
             temp[k++] = array[i++];
@@ -61,6 +83,9 @@ public class Merge {
         for (int x = 0; x < temp.length; x++){
             array[x+low] = temp[x];
         }
+        if (SortMetrics.ENABLED){
+            SortMetrics.moved(2L * temp.length);
+        }
     }
 
     /**
@@ -101,4 +126,543 @@ public class Merge {
     }
 
 
+    //================自然归并排序=========================
+
+    /**
+     * 自然归并排序
+     * sortMergel总是从长度为1的段开始做log2(n)趟完整的合并，这里直接利用输入中已有的升序段和降序段，
+     * 基本有序的输入（例如追加为主的日志）只需要接近线性的时间，详见NaturalMerge
+     * @param array
+     */
+    public static void naturalSort(int[] array){
+        NaturalMerge.sort(array, 0, array.length);
+    }
+
+    /**
+     * 对区间[from, to)做自然归并排序，排序是稳定的
+     * @param array
+     * @param from
+     * @param to
+     */
+    public static void naturalSort(int[] array, int from, int to){
+        NaturalMerge.sort(array, from, to);
+    }
+
+
+    //================原地稳定归并排序（SymMerge）=========================
+
+    /**
+     * 原地稳定归并排序，不使用辅助数组
+     * @param array
+     * @param from
+     * @param to
+     */
+    public static void inPlaceSort(int[] array, int from, int to){
+        inPlaceSort(array, from, to, 0);
+    }
+
+    /**
+     * 原地稳定归并排序，辅助空间不超过bufferLength个元素（int[]每个元素4字节）
+     * 先把每IN_PLACE_LEAF个元素一组用排序网络排好，再自底向上两两合并：
+     * 1. 较短的一边放得进辅助数组时，把它复制出来做普通的合并
+     * 2. 否则用SymMerge（Kim & Kutzner）：二分找到分割点，旋转中间两段，再分别递归合并两边
+     * bufferLength不小于(to - from) / 2时与普通归并排序相同，时间O(n log n)；
+     * 更小时比较次数仍为O(n log n)，旋转带来的移动次数最坏为O(n log² n)，递归深度为O(log n)
+     * 常用的折中是bufferLength取sqrt(n)，大部分靠近叶子的合并都能在辅助数组中完成
+     * @param array
+     * @param from
+     * @param to
+     * @param bufferLength 辅助空间的元素个数上限，0表示完全原地
+     */
+    public static void inPlaceSort(int[] array, int from, int to, int bufferLength){
+        int n = to - from;
+        if (n < 2){
+            return;
+        }
+        int[] buffer = new int[Math.max(0, Math.min(bufferLength, n / 2))];
+        for (int i = from; i < to; i += Math.min(IN_PLACE_LEAF, to - i)){
+            SmallSort.sort(array, i, Math.min(i + IN_PLACE_LEAF, to));
+        }
+        for (int width = IN_PLACE_LEAF; width < n; width *= 2){
+            for (int low = from; to - low > width; ){
+                int high = to - low > 2 * width ? low + 2 * width : to;
+                symMerge(array, low, low + width, high, buffer);
+                low = high;
+            }
+        }
+    }
+
+    /**
+     * 原地稳定合并有序区间[low, mid]和[mid + 1, high]，参数与merge相同，不使用辅助数组
+     * @param array
+     * @param low
+     * @param mid
+     * @param high
+     */
+    public static void mergeInPlace(int[] array, int low, int mid, int high){
+        mergeInPlace(array, low, mid, high, 0);
+    }
+
+    /**
+     * 原地稳定合并有序区间[low, mid]和[mid + 1, high]，辅助空间不超过bufferLength个元素
+     * @param array
+     * @param low
+     * @param mid
+     * @param high
+     * @param bufferLength
+     */
+    public static void mergeInPlace(int[] array, int low, int mid, int high, int bufferLength){
+        int shorter = Math.min(mid - low + 1, high - mid);
+        symMerge(array, low, mid + 1, high + 1, new int[Math.max(0, Math.min(bufferLength, shorter))]);
+    }
+
+    /**
+     * 对象数组的原地稳定归并排序，相等的元素保持原来的先后顺序，辅助空间不超过bufferLength个引用
+     * 过程与int[]相同，叶子用二分插入排序以保持稳定
+     * @param array
+     * @param from
+     * @param to
+     * @param comparator
+     * @param bufferLength
+     * @param <T>
+     */
+    public static <T> void inPlaceSort(T[] array, int from, int to, Comparator<? super T> comparator, int bufferLength){
+        int n = to - from;
+        if (n < 2){
+            return;
+        }
+        Object[] buffer = new Object[Math.max(0, Math.min(bufferLength, n / 2))];
+        for (int i = from; i < to; i += Math.min(IN_PLACE_LEAF, to - i)){
+            binaryInsertionSort(array, i, Math.min(i + IN_PLACE_LEAF, to), comparator);
+        }
+        for (int width = IN_PLACE_LEAF; width < n; width *= 2){
+            for (int low = from; to - low > width; ){
+                int high = to - low > 2 * width ? low + 2 * width : to;
+                symMerge(array, low, low + width, high, buffer, comparator);
+                low = high;
+            }
+        }
+        Arrays.fill(buffer, null);
+    }
+
+    /**
+     * 合并有序的[low, mid)和[mid, high)
+     */
+    private static void symMerge(int[] array, int low, int mid, int high, int[] buffer){
+        if (low >= mid || mid >= high){
+            return;
+        }
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(1);
+        }
+        if (array[mid - 1] <= array[mid]){
+            return;
+        }
+        int left = mid - low, right = high - mid;
+        if (left <= right && left <= buffer.length){
+            //左边复制出来，从前往后合并，相等时左边优先
+            long startNanos = SortMetrics.ENABLED ? System.nanoTime() : 0;
+            System.arraycopy(array, low, buffer, 0, left);
+            int i = 0, j = mid, k = low;
+            while (i < left && j < high){
+                array[k++] = array[j] < buffer[i] ? array[j++] : buffer[i++];
+            }
+            if (SortMetrics.ENABLED){
+                SortMetrics.compared(k - low);
+                SortMetrics.moved(left + k - low + left - i);
+                SortMetrics.phase(SortMetrics.Phase.MERGE, startNanos);
+            }
+            System.arraycopy(buffer, i, array, k, left - i);
+            return;
+        }
+        if (right <= buffer.length){
+            //右边复制出来，从后往前合并，相等时右边优先
+            long startNanos = SortMetrics.ENABLED ? System.nanoTime() : 0;
+            System.arraycopy(array, mid, buffer, 0, right);
+            int i = mid - 1, j = right - 1, k = high - 1;
+            while (i >= low && j >= 0){
+                array[k--] = array[i] > buffer[j] ? array[i--] : buffer[j--];
+            }
+            if (SortMetrics.ENABLED){
+                SortMetrics.compared(high - 1 - k);
+                SortMetrics.moved(right + high - 1 - k + j + 1);
+                SortMetrics.phase(SortMetrics.Phase.MERGE, startNanos);
+            }
+            System.arraycopy(buffer, 0, array, low, j + 1);
+            return;
+        }
+        if (left == 1){
+            //把array[low]插到右边第一个不小于它的元素之前
+            int pos = lowerBound(array, mid, high, array[low]);
+            rotate(array, low, mid, pos);
+            return;
+        }
+        if (right == 1){
+            //把array[mid]插到左边第一个大于它的元素之前
+            int pos = upperBound(array, low, mid, array[mid]);
+            rotate(array, pos, mid, high);
+            return;
+        }
+        //在以center为中心对称的位置上二分，找到start使得[start, mid)和[mid, end)交换后两边各自独立
+        int center = (low + high) >>> 1;
+        int sum = center + mid;
+        int start, r;
+        if (mid > center){
+            start = sum - high;
+            r = center;
+        } else {
+            start = low;
+            r = mid;
+        }
+        int p = sum - 1;
+        long comparisons = 0;
+        while (start < r){
+            int c = (start + r) >>> 1;
+            if (SortMetrics.ENABLED){
+                comparisons++;
+            }
+            if (array[c] <= array[p - c]){
+                start = c + 1;
+            } else {
+                r = c;
+            }
+        }
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(comparisons);
+        }
+        int end = sum - start;
+        rotate(array, start, mid, end);
+        symMerge(array, low, start, center, buffer);
+        symMerge(array, center, end, high, buffer);
+    }
+
+    /**
+     * 把[low, mid)和[mid, high)两段交换位置，三次翻转实现
+     */
+    private static void rotate(int[] array, int low, int mid, int high){
+        if (low >= mid || mid >= high){
+            return;
+        }
+        reverse(array, low, mid - 1);
+        reverse(array, mid, high - 1);
+        reverse(array, low, high - 1);
+    }
+
+    private static void reverse(int[] array, int i, int j){
+        if (SortMetrics.ENABLED && i < j){
+            SortMetrics.moved((j - i + 1) & ~1);
+        }
+        while (i < j){
+            int temp = array[i];
+            array[i++] = array[j];
+            array[j--] = temp;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void symMerge(T[] array, int low, int mid, int high, Object[] buffer, Comparator<? super T> comparator){
+        if (low >= mid || mid >= high || comparator.compare(array[mid - 1], array[mid]) <= 0){
+            return;
+        }
+        int left = mid - low, right = high - mid;
+        if (left <= right && left <= buffer.length){
+            System.arraycopy(array, low, buffer, 0, left);
+            int i = 0, j = mid, k = low;
+            while (i < left && j < high){
+                array[k++] = comparator.compare(array[j], (T) buffer[i]) < 0 ? array[j++] : (T) buffer[i++];
+            }
+            System.arraycopy(buffer, i, array, k, left - i);
+            return;
+        }
+        if (right <= buffer.length){
+            System.arraycopy(array, mid, buffer, 0, right);
+            int i = mid - 1, j = right - 1, k = high - 1;
+            while (i >= low && j >= 0){
+                array[k--] = comparator.compare(array[i], (T) buffer[j]) > 0 ? array[i--] : (T) buffer[j--];
+            }
+            System.arraycopy(buffer, 0, array, low, j + 1);
+            return;
+        }
+        int center = (low + high) >>> 1;
+        int sum = center + mid;
+        int start, r;
+        if (mid > center){
+            start = sum - high;
+            r = center;
+        } else {
+            start = low;
+            r = mid;
+        }
+        int p = sum - 1;
+        while (start < r){
+            int c = (start + r) >>> 1;
+            if (comparator.compare(array[c], array[p - c]) <= 0){
+                start = c + 1;
+            } else {
+                r = c;
+            }
+        }
+        int end = sum - start;
+        rotate(array, start, mid, end);
+        symMerge(array, low, start, center, buffer, comparator);
+        symMerge(array, center, end, high, buffer, comparator);
+    }
+
+    private static void rotate(Object[] array, int low, int mid, int high){
+        if (low >= mid || mid >= high){
+            return;
+        }
+        reverse(array, low, mid - 1);
+        reverse(array, mid, high - 1);
+        reverse(array, low, high - 1);
+    }
+
+    private static void reverse(Object[] array, int i, int j){
+        while (i < j){
+            Object temp = array[i];
+            array[i++] = array[j];
+            array[j--] = temp;
+        }
+    }
+
+    /**
+     * 对[from, to)做二分插入排序，插到相等元素之后，保持稳定
+     */
+    private static <T> void binaryInsertionSort(T[] array, int from, int to, Comparator<? super T> comparator){
+        for (int index = from + 1; index < to; index++){
+            T temp = array[index];
+            int low = from, high = index;
+            while (low < high){
+                int mid = (low + high) >>> 1;
+                if (comparator.compare(temp, array[mid]) < 0){
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            System.arraycopy(array, low, array, low + 1, index - low);
+            array[low] = temp;
+        }
+    }
+
+
+    //================并行归并排序（单一辅助数组，乒乓交替）=========================
+
+    /**
+     * 并行归并排序，使用默认阈值和公共ForkJoinPool
+     * @param array
+     */
+    public static void parallelSort(int[] array){
+        parallelSort(array, DEFAULT_PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 并行归并排序
+     * 整个排序过程只分配一个与原数组等长的辅助数组，每一层递归在原数组和辅助数组之间交替读写（乒乓），
+     * 不再像merge和sortHelper那样每次合并都新建临时数组。
+     * 区间长度大于阈值时递归拆分到ForkJoinPool中执行，最后的合并也按中位数（co-rank）拆分后并行完成。
+     * @param array
+     * @param threshold 拆分任务的最小区间长度
+     * @param pool
+     */
+    public static void parallelSort(int[] array, int threshold, ForkJoinPool pool){
+        if (array == null || array.length < 2){
+            return;
+        }
+        if (threshold < SMALL_SORT_THRESHOLD){
+            threshold = SMALL_SORT_THRESHOLD;
+        }
+        //辅助数组与原数组内容相同，保证每一层递归两个数组中同一区间的元素集合一致
+        int[] buffer = array.clone();
+        if (array.length <= threshold){
+            sortInto(buffer, array, 0, array.length);
+        } else {
+            pool.invoke(new SortTask(buffer, array, 0, array.length, threshold));
+        }
+    }
+
+    /**
+     * 顺序版本：将src[low, high)排好序后写入dst[low, high)
+     * 进入时src和dst在该区间内的元素相同，子区间先排序到src中，再合并回dst
+     */
+    private static void sortInto(int[] src, int[] dst, int low, int high){
+        if (high - low <= SMALL_SORT_THRESHOLD){
+            //src[low, high)马上会被上一层的合并覆盖，可以作为SmallSort的辅助空间
+            SmallSort.sort(dst, low, high, src, low);
+            return;
+        }
+        if (SortMetrics.ENABLED){
+            SortMetrics.enter();
+        }
+        int mid = (low + high) >>> 1;
+        sortInto(dst, src, low, mid);
+        sortInto(dst, src, mid, high);
+        if (SortMetrics.ENABLED){
+            SortMetrics.exit();
+        }
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(1);
+        }
+        //两半已经有序并且整体有序，直接复制即可
+        if (src[mid - 1] <= src[mid]){
+            if (SortMetrics.ENABLED){
+                SortMetrics.moved(high - low);
+            }
+            System.arraycopy(src, low, dst, low, high - low);
+            return;
+        }
+        mergeInto(src, low, mid, src, mid, high, dst, low);
+    }
+
+    /**
+     * 把有序区间a[aLow, aHigh)和b[bLow, bHigh)合并到dst[pos...]，相等时左边优先，保持稳定
+     */
+    private static void mergeInto(int[] a, int aLow, int aHigh, int[] b, int bLow, int bHigh, int[] dst, int pos){
+        long startNanos = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        int i = aLow, j = bLow, k = pos;
+        while (i < aHigh && j < bHigh){
+            dst[k++] = b[j] < a[i] ? b[j++] : a[i++];
+        }
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(k - pos);
+        }
+        if (i < aHigh){
+            System.arraycopy(a, i, dst, k, aHigh - i);
+        } else if (j < bHigh){
+            System.arraycopy(b, j, dst, k, bHigh - j);
+        }
+        if (SortMetrics.ENABLED){
+            SortMetrics.moved((aHigh - aLow) + (bHigh - bLow));
+            SortMetrics.phase(SortMetrics.Phase.MERGE, startNanos);
+        }
+    }
+
+    /**
+     * 第一个不小于key的下标
+     */
+    private static int lowerBound(int[] array, int low, int high, int key){
+        long comparisons = 0;
+        while (low < high){
+            int mid = (low + high) >>> 1;
+            if (SortMetrics.ENABLED){
+                comparisons++;
+            }
+            if (array[mid] < key){
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(comparisons);
+        }
+        return low;
+    }
+
+    /**
+     * 第一个大于key的下标
+     */
+    private static int upperBound(int[] array, int low, int high, int key){
+        long comparisons = 0;
+        while (low < high){
+            int mid = (low + high) >>> 1;
+            if (SortMetrics.ENABLED){
+                comparisons++;
+            }
+            if (array[mid] <= key){
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(comparisons);
+        }
+        return low;
+    }
+
+    /**
+     * 并行排序任务：将src[low, high)排好序后写入dst[low, high)
+     */
+    private static class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int[] dst;
+        private final int low;
+        private final int high;
+        private final int threshold;
+
+        SortTask(int[] src, int[] dst, int low, int high, int threshold){
+            this.src = src;
+            this.dst = dst;
+            this.low = low;
+            this.high = high;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (high - low <= threshold){
+                sortInto(src, dst, low, high);
+                return;
+            }
+            int mid = (low + high) >>> 1;
+            invokeAll(new SortTask(dst, src, low, mid, threshold),
+                    new SortTask(dst, src, mid, high, threshold));
+            if (src[mid - 1] <= src[mid]){
+                System.arraycopy(src, low, dst, low, high - low);
+                return;
+            }
+            new MergeTask(src, low, mid, mid, high, dst, low, threshold).compute();
+        }
+    }
+
+    /**
+     * 并行合并任务：把src[aLow, aHigh)和src[bLow, bHigh)合并到dst[pos...]
+     * 取较长一段的中位数，在另一段中二分查找它的位置（co-rank），拆成两个互不相交的子合并并行执行
+     */
+    private static class MergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int aLow, aHigh, bLow, bHigh;
+        private final int[] dst;
+        private final int pos;
+        private final int threshold;
+
+        MergeTask(int[] src, int aLow, int aHigh, int bLow, int bHigh, int[] dst, int pos, int threshold){
+            this.src = src;
+            this.aLow = aLow;
+            this.aHigh = aHigh;
+            this.bLow = bLow;
+            this.bHigh = bHigh;
+            this.dst = dst;
+            this.pos = pos;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int aLen = aHigh - aLow, bLen = bHigh - bLow;
+            if (aLen + bLen <= threshold){
+                mergeInto(src, aLow, aHigh, src, bLow, bHigh, dst, pos);
+                return;
+            }
+            int aMid, bMid;
+            if (aLen >= bLen){
+                //左段的中位数，右段中严格小于它的元素排在它前面
+                aMid = (aLow + aHigh) >>> 1;
+                bMid = lowerBound(src, bLow, bHigh, src[aMid]);
+            } else {
+                //右段的中位数，左段中小于等于它的元素排在它前面
+                bMid = (bLow + bHigh) >>> 1;
+                aMid = upperBound(src, aLow, aHigh, src[bMid]);
+            }
+            int split = pos + (aMid - aLow) + (bMid - bLow);
+            invokeAll(new MergeTask(src, aLow, aMid, bLow, bMid, dst, pos, threshold),
+                    new MergeTask(src, aMid, aHigh, bMid, bHigh, dst, split, threshold));
+        }
+    }
+
 }
@@ -0,0 +1,425 @@
+package the_sorting;
+
+/**
+ * 自然归并排序，由Merge.naturalSort调用，排序是稳定的
+ * 1. 从左到右找出已有的升序段和严格降序段，降序段原地翻转（严格降序才翻转，相等元素的次序不变）
+ * 2. 短于minRun的段用二分插入排序扩展到minRun，minRun在[MIN_RUN / 2, MIN_RUN]之间
+ * 3. 合并顺序按powersort（Munro和Wild，2018）：相邻两段的"power"是两段中点在[0, 1)中的二进制展开第一位不同的位置，
+ *    新段到来时先合并栈中power大于新边界的段，栈中的power严格递增，栈深不超过log2(n) + 1，合并代价接近最优
+ * 4. 合并前先用倍增查找去掉两端已经在最终位置的元素，只把较短的一段复制到辅助数组；
+ *    一边连续胜出GALLOP次后改为倍增查找整块复制，直到两边每次都只能复制很少的元素
+ * 基本有序的输入只需要接近线性的时间
+ */
+final class NaturalMerge {
+
+    /**
+     * minRun的上限，短于它的区间直接二分插入排序
+     */
+    private static final int MIN_RUN = 32;
+
+    /**
+     * 一边连续胜出这么多次后改为整块查找
+     */
+    private static final int GALLOP = 8;
+
+    /**
+     * power最多32，栈中power严格递增，再加上第一个段
+     */
+    private static final int MAX_STACK = 40;
+
+    private final int[] array;
+    private final int low;
+    private final int n;
+
+    /**
+     * 栈中第i个段从runStart[i]开始，到runStart[i + 1]（栈顶到当前扫描位置）结束，
+     * runPower[i]是第i - 1个段和第i个段之间边界的power
+     */
+    private final int[] runStart = new int[MAX_STACK];
+    private final int[] runPower = new int[MAX_STACK];
+    private int top = -1;
+
+    private int[] buffer = new int[0];
+
+    private NaturalMerge(int[] array, int low, int high){
+        this.array = array;
+        this.low = low;
+        this.n = high - low;
+    }
+
+    /**
+     * 对区间[low, high)排序
+     */
+    static void sort(int[] array, int low, int high){
+        int n = high - low;
+        if (n < 2){
+            return;
+        }
+        if (n <= MIN_RUN){
+            insertTail(array, low, high, findRun(array, low, high));
+            return;
+        }
+        new NaturalMerge(array, low, high).run(high);
+    }
+
+    private void run(int high){
+        int minRun = minRun(n);
+        int start = low;
+        while (start < high){
+            int end = findRun(array, start, high);
+            if (end - start < minRun){
+                int forced = Math.min(high, start + minRun);
+                insertTail(array, start, forced, end);
+                end = forced;
+            }
+            push(start, end);
+            start = end;
+        }
+        //剩下的段从栈顶往下依次合并
+        while (top > 0){
+            mergeTop(high);
+        }
+    }
+
+    /**
+     * 新段[start, end)入栈，先合并栈中与它边界power更大的段
+     */
+    private void push(int start, int end){
+        if (top >= 0){
+            int power = power(runStart[top], start, end);
+            while (top > 0 && runPower[top] > power){
+                mergeTop(start);
+            }
+            top++;
+            runPower[top] = power;
+        } else {
+            top = 0;
+        }
+        runStart[top] = start;
+    }
+
+    /**
+     * 合并栈顶的两个段，栈顶段到end结束
+     */
+    private void mergeTop(int end){
+        merge(runStart[top - 1], runStart[top], end);
+        top--;
+    }
+
+    /**
+     * 段[a, b)和[b, c)之间边界的power
+     * 两段中点相对区间的位置分别是x = (a + b) / 2n、y = (b + c) / 2n（减去low后），
+     * 返回最小的l，使x和y乘以2^l后整数部分不同
+     */
+    private int power(int a, int b, int c){
+        long twiceN = 2L * n;
+        long x = (long) (a - low) + (b - low);
+        long y = (long) (b - low) + (c - low);
+        int power = 0;
+        while (true){
+            power++;
+            x <<= 1;
+            y <<= 1;
+            //比较当前这一位，两数同时越过twiceN时去掉这一位继续比较
+            boolean xBit = x >= twiceN, yBit = y >= twiceN;
+            if (xBit != yBit){
+                return power;
+            }
+            if (xBit){
+                x -= twiceN;
+                y -= twiceN;
+            }
+        }
+    }
+
+    /**
+     * minRun取n的最高5位，低位不全为0时再加1，使n / minRun等于或略小于2的幂
+     */
+    static int minRun(int n){
+        int shift = Math.max(0, 32 - Integer.numberOfLeadingZeros(n) - 5);
+        int run = n >>> shift;
+        return (n & ((1 << shift) - 1)) != 0 ? run + 1 : run;
+    }
+
+    /**
+     * 从start开始的有序段的结束位置，严格降序段翻转成升序
+     */
+    static int findRun(int[] array, int start, int high){
+        int end = start + 1;
+        if (end == high){
+            return end;
+        }
+        long comparisons = 1;
+        if (array[end] < array[start]){
+            while (end + 1 < high && array[end + 1] < array[end]){
+                end++;
+                comparisons++;
+            }
+            end++;
+            reverse(array, start, end);
+            if (SortMetrics.ENABLED){
+                SortMetrics.moved((end - start) & ~1);
+            }
+        } else {
+            while (end + 1 < high && array[end + 1] >= array[end]){
+                end++;
+                comparisons++;
+            }
+            end++;
+        }
+        if (SortMetrics.ENABLED){
+            //没有到达high时还有一次使段结束的比较
+            SortMetrics.compared(comparisons + (end < high ? 1 : 0));
+        }
+        return end;
+    }
+
+    private static void reverse(int[] array, int i, int j){
+        for (j--; i < j; i++, j--){
+            int temp = array[i];
+            array[i] = array[j];
+            array[j] = temp;
+        }
+    }
+
+    /**
+     * [start, sorted)已经有序，把[sorted, end)中的元素依次插入，用二分查找定位，相等时插在后面以保持稳定
+     */
+    static void insertTail(int[] array, int start, int end, int sorted){
+        long comparisons = 0, moves = 0;
+        for (int i = sorted; i < end; i++){
+            int value = array[i];
+            int left = start, right = i;
+            while (left < right){
+                int mid = (left + right) >>> 1;
+                if (array[mid] <= value){
+                    left = mid + 1;
+                } else {
+                    right = mid;
+                }
+                if (SortMetrics.ENABLED){
+                    comparisons++;
+                }
+            }
+            System.arraycopy(array, left, array, left + 1, i - left);
+            array[left] = value;
+            if (SortMetrics.ENABLED){
+                moves += i - left + 1;
+            }
+        }
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(comparisons);
+            SortMetrics.moved(moves);
+        }
+    }
+
+    /**
+     * 合并有序的[lo, mid)和[mid, hi)
+     */
+    private void merge(int lo, int mid, int hi){
+        int[] a = array;
+        //左段中不大于a[mid]的前缀、右段中不小于a[mid - 1]的后缀已经在最终位置
+        lo = searchFromLeft(a, lo, mid, a[mid], true);
+        if (lo == mid){
+            return;
+        }
+        hi = searchFromRight(a, mid, hi, a[mid - 1], false);
+        long startNanos = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        if (mid - lo <= hi - mid){
+            mergeForward(lo, mid, hi);
+        } else {
+            mergeBackward(lo, mid, hi);
+        }
+        if (SortMetrics.ENABLED){
+            SortMetrics.phase(SortMetrics.Phase.MERGE, startNanos);
+        }
+    }
+
+    /**
+     * 左段较短：复制到辅助数组，从左往右写回，右段剩下的部分已经在原位
+     */
+    private void mergeForward(int lo, int mid, int hi){
+        int[] a = array;
+        int len = mid - lo;
+        int[] t = buffer(len);
+        System.arraycopy(a, lo, t, 0, len);
+        int i = 0, j = mid, k = lo;
+        int leftWins = 0, rightWins = 0;
+        long comparisons = 0;
+        while (i < len && j < hi){
+            if (leftWins >= GALLOP || rightWins >= GALLOP){
+                //左段中不大于a[j]的元素整块写回
+                int c = searchFromLeft(t, i, len, a[j], true) - i;
+                System.arraycopy(t, i, a, k, c);
+                i += c;
+                k += c;
+                if (i == len){
+                    break;
+                }
+                //右段中小于t[i]的元素整块前移
+                int d = searchFromLeft(a, j, hi, t[i], false) - j;
+                System.arraycopy(a, j, a, k, d);
+                j += d;
+                k += d;
+                if (c < GALLOP && d < GALLOP){
+                    leftWins = 0;
+                    rightWins = 0;
+                }
+                continue;
+            }
+            if (SortMetrics.ENABLED){
+                comparisons++;
+            }
+            if (a[j] < t[i]){
+                a[k++] = a[j++];
+                rightWins++;
+                leftWins = 0;
+            } else {
+                a[k++] = t[i++];
+                leftWins++;
+                rightWins = 0;
+            }
+        }
+        System.arraycopy(t, i, a, k, len - i);
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(comparisons);
+            //左段复制出来再写回，右段中被前移的元素各移动一次
+            SortMetrics.moved(2L * len + (j - mid));
+        }
+    }
+
+    /**
+     * 右段较短：复制到辅助数组，从右往左写回，左段剩下的部分已经在原位
+     */
+    private void mergeBackward(int lo, int mid, int hi){
+        int[] a = array;
+        int len = hi - mid;
+        int[] t = buffer(len);
+        System.arraycopy(a, mid, t, 0, len);
+        int i = mid - 1, j = len - 1, k = hi - 1;
+        int leftWins = 0, rightWins = 0;
+        long comparisons = 0;
+        while (i >= lo && j >= 0){
+            if (leftWins >= GALLOP || rightWins >= GALLOP){
+                //右段中不小于a[i]的元素排在a[i]后面，整块写回
+                int c = j + 1 - searchFromRight(t, 0, j + 1, a[i], false);
+                j -= c;
+                k -= c;
+                System.arraycopy(t, j + 1, a, k + 1, c);
+                if (j < 0){
+                    break;
+                }
+                //左段中大于t[j]的元素整块后移
+                int d = i + 1 - searchFromRight(a, lo, i + 1, t[j], true);
+                i -= d;
+                k -= d;
+                System.arraycopy(a, i + 1, a, k + 1, d);
+                if (c < GALLOP && d < GALLOP){
+                    leftWins = 0;
+                    rightWins = 0;
+                }
+                continue;
+            }
+            if (SortMetrics.ENABLED){
+                comparisons++;
+            }
+            if (t[j] < a[i]){
+                a[k--] = a[i--];
+                leftWins++;
+                rightWins = 0;
+            } else {
+                a[k--] = t[j--];
+                rightWins++;
+                leftWins = 0;
+            }
+        }
+        System.arraycopy(t, 0, a, k - j, j + 1);
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(comparisons);
+            SortMetrics.moved(2L * len + (mid - 1 - i));
+        }
+    }
+
+    /**
+     * 在有序的[from, to)中从左往右倍增查找，返回第一个不满足条件的下标：
+     * inclusive为true时条件是 元素 <= key，否则是 元素 < key
+     */
+    static int searchFromLeft(int[] a, int from, int to, int key, boolean inclusive){
+        long comparisons = 0;
+        int known = from, limit = to;
+        //依次检查from + 0, 1, 3, 7, 15...
+        for (long offset = 0; from + offset < to; offset = 2 * offset + 1){
+            int probe = (int) (from + offset);
+            comparisons++;
+            if (!before(a[probe], key, inclusive)){
+                limit = probe;
+                break;
+            }
+            known = probe + 1;
+        }
+        int result = binarySearch(a, known, limit, key, inclusive);
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(comparisons + log2(limit - known + 1));
+        }
+        return result;
+    }
+
+    /**
+     * 与searchFromLeft的结果相同，从to - 1开始往左倍增查找
+     */
+    static int searchFromRight(int[] a, int from, int to, int key, boolean inclusive){
+        long comparisons = 0;
+        int known = from, limit = to;
+        for (long offset = 1; to - offset >= from; offset = 2 * offset + 1){
+            int probe = (int) (to - offset);
+            comparisons++;
+            if (before(a[probe], key, inclusive)){
+                known = probe + 1;
+                break;
+            }
+            limit = probe;
+        }
+        int result = binarySearch(a, known, limit, key, inclusive);
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(comparisons + log2(limit - known + 1));
+        }
+        return result;
+    }
+
+    /**
+     * [from, to)中第一个不满足条件的下标，已知from之前都满足、to及之后都不满足
+     */
+    private static int binarySearch(int[] a, int from, int to, int key, boolean inclusive){
+        while (from < to){
+            int mid = (from + to) >>> 1;
+            if (before(a[mid], key, inclusive)){
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    private static boolean before(int value, int key, boolean inclusive){
+        return inclusive ? value <= key : value < key;
+    }
+
+    /**
+     * 二分查找的比较次数
+     */
+    private static int log2(int n){
+        return 31 - Integer.numberOfLeadingZeros(n);
+    }
+
+    /**
+     * 至少能放下len个元素的辅助数组，不够时按2倍扩容，不超过n / 2
+     */
+    private int[] buffer(int len){
+        if (buffer.length < len){
+            buffer = new int[Math.max(len, Math.min(n >>> 1, 2 * buffer.length))];
+        }
+        return buffer;
+    }
+
+}
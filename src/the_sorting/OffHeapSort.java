@@ -0,0 +1,1226 @@
+package the_sorting;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Random;
+
+/**
+ * 堆外排序
+ * 直接对IntBuffer/LongBuffer中[position, limit)的元素排序，缓冲区通常是直接缓冲区或内存映射文件的视图，
+ * 不需要先复制到int[]/long[]排序再复制回去，数据和辅助空间都不占用Java堆
+ * 1. radixSort：按字节的LSD基数排序，做法与Radix.lsdSort相同，辅助空间是同样大小的直接缓冲区
+ * 2. introSort：内省排序，完全原地
+ * 3. mergeSort：自底向上的归并排序，稳定，辅助空间与radixSort相同
+ * 单个缓冲区不超过2^31 - 1字节，更大的数据分成多个缓冲区按顺序拼成一个序列，三种排序都有对应的IntBuffer[]/LongBuffer[]版本
+ * 视图的字节序由缓冲区决定，使用本机字节序（ByteOrder.nativeOrder()）时最快
+ */
+public class OffHeapSort {
+
+    /**
+     * allocateIntSegments/allocateLongSegments每段的字节数
+     */
+    private static final int SEGMENT_BYTES = 1 << 30;
+
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    public static void main(String[] args) {
+        int n = 1 << 20;
+        Random random = new Random(42);
+        IntBuffer ints = allocateInts(n);
+        for (int i = 0; i < n; i++){
+            ints.put(i, random.nextInt());
+        }
+        long start = System.nanoTime();
+        radixSort(ints);
+        System.out.printf("radixSort %d ints: %.1f ms%n", n, (System.nanoTime() - start) / 1e6);
+
+        LongBuffer longs = allocateLongs(n);
+        for (int i = 0; i < n; i++){
+            longs.put(i, random.nextLong());
+        }
+        start = System.nanoTime();
+        introSort(longs);
+        System.out.printf("introSort %d longs: %.1f ms%n", n, (System.nanoTime() - start) / 1e6);
+        for (int i = 0; i < 5; i++){
+            System.out.println(ints.get(i) + " " + longs.get(i));
+        }
+    }
+
+    /**
+     * 分配n个int的直接缓冲区，使用本机字节序
+     * @param n
+     * @return
+     */
+    public static IntBuffer allocateInts(int n){
+        if (n > Integer.MAX_VALUE / 4){
+            throw new IllegalArgumentException("too many ints for one buffer: " + n + ", use allocateIntSegments");
+        }
+        return ByteBuffer.allocateDirect(n * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    /**
+     * 分配n个long的直接缓冲区，使用本机字节序
+     * @param n
+     * @return
+     */
+    public static LongBuffer allocateLongs(int n){
+        if (n > Integer.MAX_VALUE / 8){
+            throw new IllegalArgumentException("too many longs for one buffer: " + n + ", use allocateLongSegments");
+        }
+        return ByteBuffer.allocateDirect(n * 8).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+    /**
+     * 分配共n个int的一组直接缓冲区，每段1GB，用于超过2^31字节的数据
+     * @param n
+     * @return
+     */
+    public static IntBuffer[] allocateIntSegments(long n){
+        int per = SEGMENT_BYTES / 4;
+        IntBuffer[] segments = new IntBuffer[(int) ((n + per - 1) / per)];
+        for (int s = 0; s < segments.length; s++){
+            segments[s] = allocateInts((int) Math.min(per, n - (long) s * per));
+        }
+        return segments;
+    }
+
+    /**
+     * 分配共n个long的一组直接缓冲区，每段1GB
+     * @param n
+     * @return
+     */
+    public static LongBuffer[] allocateLongSegments(long n){
+        int per = SEGMENT_BYTES / 8;
+        LongBuffer[] segments = new LongBuffer[(int) ((n + per - 1) / per)];
+        for (int s = 0; s < segments.length; s++){
+            segments[s] = allocateLongs((int) Math.min(per, n - (long) s * per));
+        }
+        return segments;
+    }
+
+
+    //================IntBuffer=========================
+
+    /**
+     * 对data的[position, limit)做LSD基数排序，内部分配辅助的直接缓冲区
+     * @param data
+     */
+    public static void radixSort(IntBuffer data){
+        radixSort(data, data.remaining() < INSERTION_SORT_THRESHOLD ? null : allocateInts(data.remaining()));
+    }
+
+    /**
+     * 对data的[position, limit)做LSD基数排序
+     * @param data
+     * @param scratch 辅助缓冲区，从position开始至少有data.remaining()个元素
+     */
+    public static void radixSort(IntBuffer data, IntBuffer scratch){
+        int from = data.position();
+        int n = data.remaining();
+        if (n < INSERTION_SORT_THRESHOLD){
+            insertionSort(data, from, from + n);
+            return;
+        }
+        checkScratch(scratch.remaining(), n);
+
+        int[] count = new int[4 * 256];
+        for (int i = from, to = from + n; i < to; i++){
+            int v = data.get(i);
+            count[v & 0xFF]++;
+            count[256 + ((v >>> 8) & 0xFF)]++;
+            count[512 + ((v >>> 16) & 0xFF)]++;
+            count[768 + ((v >>> 24) ^ 0x80)]++;
+        }
+
+        IntBuffer src = data, dst = scratch;
+        int srcFrom = from, dstFrom = scratch.position();
+        for (int b = 0; b < 4; b++){
+            int base = b * 256;
+            int shift = b * 8;
+            int flip = b == 3 ? 0x80 : 0;
+            if (count[base + (((src.get(srcFrom) >>> shift) & 0xFF) ^ flip)] == n){
+                continue;
+            }
+            int sum = 0;
+            for (int i = base; i < base + 256; i++){
+                int c = count[i];
+                count[i] = sum;
+                sum += c;
+            }
+            for (int i = srcFrom, srcTo = srcFrom + n; i < srcTo; i++){
+                int v = src.get(i);
+                dst.put(dstFrom + count[base + (((v >>> shift) & 0xFF) ^ flip)]++, v);
+            }
+            IntBuffer t = src;
+            src = dst;
+            dst = t;
+            int f = srcFrom;
+            srcFrom = dstFrom;
+            dstFrom = f;
+        }
+        if (src != data){
+            copy(src, srcFrom, data, from, n);
+        }
+    }
+
+    /**
+     * 对data的[position, limit)做内省排序，不使用辅助空间
+     * @param data
+     */
+    public static void introSort(IntBuffer data){
+        int start = data.position(), end = data.limit() - 1;
+        if (start < end){
+            introSort(data, start, end, 2 * log2(end - start + 1));
+        }
+    }
+
+    /**
+     * 对data的[position, limit)做归并排序，内部分配辅助的直接缓冲区
+     * @param data
+     */
+    public static void mergeSort(IntBuffer data){
+        mergeSort(data, data.remaining() <= INSERTION_SORT_THRESHOLD ? null : allocateInts(data.remaining()));
+    }
+
+    /**
+     * 对data的[position, limit)做稳定的归并排序，每INSERTION_SORT_THRESHOLD个元素先插入排序，
+     * 再在data和scratch之间交替合并
+     * @param data
+     * @param scratch 辅助缓冲区，从position开始至少有data.remaining()个元素
+     */
+    public static void mergeSort(IntBuffer data, IntBuffer scratch){
+        int from = data.position();
+        int n = data.remaining();
+        for (int i = 0; i < n; i += INSERTION_SORT_THRESHOLD){
+            insertionSort(data, from + i, from + Math.min(n, i + INSERTION_SORT_THRESHOLD));
+        }
+        if (n <= INSERTION_SORT_THRESHOLD){
+            return;
+        }
+        checkScratch(scratch.remaining(), n);
+        IntBuffer src = data, dst = scratch;
+        int srcFrom = from, dstFrom = scratch.position();
+        for (int width = INSERTION_SORT_THRESHOLD; width < n; width *= 2){
+            for (int low = 0; low < n; low += Math.min(n - low, 2 * width)){
+                int mid = Math.min(n, low + width);
+                int high = Math.min(n, mid + width);
+                int i = srcFrom + low, iEnd = srcFrom + mid;
+                int j = iEnd, jEnd = srcFrom + high;
+                int k = dstFrom + low;
+                while (i < iEnd && j < jEnd){
+                    int x = src.get(i), y = src.get(j);
+                    if (y < x){
+                        dst.put(k++, y);
+                        j++;
+                    } else {
+                        dst.put(k++, x);
+                        i++;
+                    }
+                }
+                copy(src, i, dst, k, iEnd - i);
+                copy(src, j, dst, k + iEnd - i, jEnd - j);
+            }
+            IntBuffer t = src;
+            src = dst;
+            dst = t;
+            int f = srcFrom;
+            srcFrom = dstFrom;
+            dstFrom = f;
+        }
+        if (src != data){
+            copy(src, srcFrom, data, from, n);
+        }
+    }
+
+    /**
+     * 把多个缓冲区的[position, limit)按顺序拼成一个序列做LSD基数排序，总长度可以超过2^31
+     * @param data
+     * @param scratch 辅助缓冲区，与data一一对应并且remaining()相同，传null时内部分配
+     */
+    public static void radixSort(IntBuffer[] data, IntBuffer[] scratch){
+        int m = data.length;
+        if (scratch == null){
+            scratch = new IntBuffer[m];
+            for (int s = 0; s < m; s++){
+                scratch[s] = allocateInts(data[s].remaining());
+            }
+        }
+        checkLayout(data.length, scratch.length);
+        long n = 0;
+        long[] count = new long[4 * 256];
+        for (int s = 0; s < m; s++){
+            IntBuffer segment = data[s];
+            checkSegment(scratch[s].remaining(), segment.remaining());
+            for (int i = segment.position(), to = segment.limit(); i < to; i++){
+                int v = segment.get(i);
+                count[v & 0xFF]++;
+                count[256 + ((v >>> 8) & 0xFF)]++;
+                count[512 + ((v >>> 16) & 0xFF)]++;
+                count[768 + ((v >>> 24) ^ 0x80)]++;
+            }
+            n += segment.remaining();
+        }
+
+        IntBuffer[] src = data, dst = scratch;
+        int[] segment = new int[256];
+        int[] offset = new int[256];
+        for (int b = 0; b < 4; b++){
+            int base = b * 256;
+            int shift = b * 8;
+            int flip = b == 3 ? 0x80 : 0;
+            if (!cursors(count, base, n, dst, segment, offset)){
+                continue;
+            }
+            for (IntBuffer in : src){
+                for (int i = in.position(), to = in.limit(); i < to; i++){
+                    int v = in.get(i);
+                    int d = ((v >>> shift) & 0xFF) ^ flip;
+                    int s = segment[d], o = offset[d];
+                    //当前段写满了，换到下一段
+                    while (o == dst[s].limit()){
+                        s++;
+                        o = dst[s].position();
+                    }
+                    dst[s].put(o, v);
+                    segment[d] = s;
+                    offset[d] = o + 1;
+                }
+            }
+            IntBuffer[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != data){
+            for (int s = 0; s < m; s++){
+                copy(src[s], src[s].position(), data[s], data[s].position(), data[s].remaining());
+            }
+        }
+    }
+
+
+    /**
+     * 把多个缓冲区的[position, limit)按顺序拼成一个序列做内省排序，不使用辅助空间，总长度可以超过2^31
+     * 跨段的区间按全局下标划分，下标换算成（段号，段内下标）后访问；区间落在一个段内以后交给单个缓冲区的内省排序
+     * @param data
+     */
+    public static void introSort(IntBuffer[] data){
+        long[] starts = starts(data);
+        long n = starts[data.length];
+        if (n > 1){
+            introSort(data, starts, 0, n - 1, 2 * log2(n));
+        }
+    }
+
+    /**
+     * 把多个缓冲区的[position, limit)按顺序拼成一个序列做稳定的归并排序，总长度可以超过2^31
+     * 先对每段分别归并排序，再以段为单位在data和scratch之间交替合并，读写位置用（段号，段内下标）游标推进
+     * @param data
+     * @param scratch 辅助缓冲区，与data一一对应并且remaining()相同，传null时内部分配
+     */
+    public static void mergeSort(IntBuffer[] data, IntBuffer[] scratch){
+        int m = data.length;
+        if (scratch == null){
+            scratch = new IntBuffer[m];
+            for (int s = 0; s < m; s++){
+                scratch[s] = allocateInts(data[s].remaining());
+            }
+        }
+        checkLayout(data.length, scratch.length);
+        for (int s = 0; s < m; s++){
+            checkSegment(scratch[s].remaining(), data[s].remaining());
+            mergeSort(data[s], scratch[s]);
+        }
+        IntBuffer[] src = data, dst = scratch;
+        for (int width = 1; width < m; width *= 2){
+            for (int low = 0; low < m; low += 2 * width){
+                int mid = Math.min(m, low + width);
+                merge(src, low, mid, Math.min(m, mid + width), dst);
+            }
+            IntBuffer[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != data){
+            for (int s = 0; s < m; s++){
+                copy(src[s], src[s].position(), data[s], data[s].position(), data[s].remaining());
+            }
+        }
+    }
+
+    //================LongBuffer=========================
+
+    /**
+     * 对data的[position, limit)做LSD基数排序，共8趟，内部分配辅助的直接缓冲区
+     * @param data
+     */
+    public static void radixSort(LongBuffer data){
+        radixSort(data, data.remaining() < INSERTION_SORT_THRESHOLD ? null : allocateLongs(data.remaining()));
+    }
+
+    /**
+     * 对data的[position, limit)做LSD基数排序
+     * @param data
+     * @param scratch 辅助缓冲区，从position开始至少有data.remaining()个元素
+     */
+    public static void radixSort(LongBuffer data, LongBuffer scratch){
+        int from = data.position();
+        int n = data.remaining();
+        if (n < INSERTION_SORT_THRESHOLD){
+            insertionSort(data, from, from + n);
+            return;
+        }
+        checkScratch(scratch.remaining(), n);
+
+        int[] count = new int[8 * 256];
+        for (int i = from, to = from + n; i < to; i++){
+            long v = data.get(i);
+            for (int b = 0; b < 7; b++){
+                count[b * 256 + (int) ((v >>> (b * 8)) & 0xFF)]++;
+            }
+            count[7 * 256 + (int) ((v >>> 56) ^ 0x80)]++;
+        }
+
+        LongBuffer src = data, dst = scratch;
+        int srcFrom = from, dstFrom = scratch.position();
+        for (int b = 0; b < 8; b++){
+            int base = b * 256;
+            int shift = b * 8;
+            int flip = b == 7 ? 0x80 : 0;
+            if (count[base + ((int) ((src.get(srcFrom) >>> shift) & 0xFF) ^ flip)] == n){
+                continue;
+            }
+            int sum = 0;
+            for (int i = base; i < base + 256; i++){
+                int c = count[i];
+                count[i] = sum;
+                sum += c;
+            }
+            for (int i = srcFrom, srcTo = srcFrom + n; i < srcTo; i++){
+                long v = src.get(i);
+                dst.put(dstFrom + count[base + ((int) ((v >>> shift) & 0xFF) ^ flip)]++, v);
+            }
+            LongBuffer t = src;
+            src = dst;
+            dst = t;
+            int f = srcFrom;
+            srcFrom = dstFrom;
+            dstFrom = f;
+        }
+        if (src != data){
+            copy(src, srcFrom, data, from, n);
+        }
+    }
+
+    /**
+     * 对data的[position, limit)做内省排序，不使用辅助空间
+     * @param data
+     */
+    public static void introSort(LongBuffer data){
+        int start = data.position(), end = data.limit() - 1;
+        if (start < end){
+            introSort(data, start, end, 2 * log2(end - start + 1));
+        }
+    }
+
+    /**
+     * 对data的[position, limit)做归并排序，内部分配辅助的直接缓冲区
+     * @param data
+     */
+    public static void mergeSort(LongBuffer data){
+        mergeSort(data, data.remaining() <= INSERTION_SORT_THRESHOLD ? null : allocateLongs(data.remaining()));
+    }
+
+    /**
+     * 对data的[position, limit)做稳定的归并排序，做法与IntBuffer版本相同
+     * @param data
+     * @param scratch 辅助缓冲区，从position开始至少有data.remaining()个元素
+     */
+    public static void mergeSort(LongBuffer data, LongBuffer scratch){
+        int from = data.position();
+        int n = data.remaining();
+        for (int i = 0; i < n; i += INSERTION_SORT_THRESHOLD){
+            insertionSort(data, from + i, from + Math.min(n, i + INSERTION_SORT_THRESHOLD));
+        }
+        if (n <= INSERTION_SORT_THRESHOLD){
+            return;
+        }
+        checkScratch(scratch.remaining(), n);
+        LongBuffer src = data, dst = scratch;
+        int srcFrom = from, dstFrom = scratch.position();
+        for (int width = INSERTION_SORT_THRESHOLD; width < n; width *= 2){
+            for (int low = 0; low < n; low += Math.min(n - low, 2 * width)){
+                int mid = Math.min(n, low + width);
+                int high = Math.min(n, mid + width);
+                int i = srcFrom + low, iEnd = srcFrom + mid;
+                int j = iEnd, jEnd = srcFrom + high;
+                int k = dstFrom + low;
+                while (i < iEnd && j < jEnd){
+                    long x = src.get(i), y = src.get(j);
+                    if (y < x){
+                        dst.put(k++, y);
+                        j++;
+                    } else {
+                        dst.put(k++, x);
+                        i++;
+                    }
+                }
+                copy(src, i, dst, k, iEnd - i);
+                copy(src, j, dst, k + iEnd - i, jEnd - j);
+            }
+            LongBuffer t = src;
+            src = dst;
+            dst = t;
+            int f = srcFrom;
+            srcFrom = dstFrom;
+            dstFrom = f;
+        }
+        if (src != data){
+            copy(src, srcFrom, data, from, n);
+        }
+    }
+
+    /**
+     * 把多个缓冲区的[position, limit)按顺序拼成一个序列做LSD基数排序，总长度可以超过2^31
+     * @param data
+     * @param scratch 辅助缓冲区，与data一一对应并且remaining()相同，传null时内部分配
+     */
+    public static void radixSort(LongBuffer[] data, LongBuffer[] scratch){
+        int m = data.length;
+        if (scratch == null){
+            scratch = new LongBuffer[m];
+            for (int s = 0; s < m; s++){
+                scratch[s] = allocateLongs(data[s].remaining());
+            }
+        }
+        checkLayout(data.length, scratch.length);
+        long n = 0;
+        long[] count = new long[8 * 256];
+        for (int s = 0; s < m; s++){
+            LongBuffer segment = data[s];
+            checkSegment(scratch[s].remaining(), segment.remaining());
+            for (int i = segment.position(), to = segment.limit(); i < to; i++){
+                long v = segment.get(i);
+                for (int b = 0; b < 7; b++){
+                    count[b * 256 + (int) ((v >>> (b * 8)) & 0xFF)]++;
+                }
+                count[7 * 256 + (int) ((v >>> 56) ^ 0x80)]++;
+            }
+            n += segment.remaining();
+        }
+
+        LongBuffer[] src = data, dst = scratch;
+        int[] segment = new int[256];
+        int[] offset = new int[256];
+        for (int b = 0; b < 8; b++){
+            int base = b * 256;
+            int shift = b * 8;
+            int flip = b == 7 ? 0x80 : 0;
+            if (!cursors(count, base, n, dst, segment, offset)){
+                continue;
+            }
+            for (LongBuffer in : src){
+                for (int i = in.position(), to = in.limit(); i < to; i++){
+                    long v = in.get(i);
+                    int d = (int) ((v >>> shift) & 0xFF) ^ flip;
+                    int s = segment[d], o = offset[d];
+                    while (o == dst[s].limit()){
+                        s++;
+                        o = dst[s].position();
+                    }
+                    dst[s].put(o, v);
+                    segment[d] = s;
+                    offset[d] = o + 1;
+                }
+            }
+            LongBuffer[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != data){
+            for (int s = 0; s < m; s++){
+                copy(src[s], src[s].position(), data[s], data[s].position(), data[s].remaining());
+            }
+        }
+    }
+
+
+    /**
+     * 把多个缓冲区的[position, limit)按顺序拼成一个序列做内省排序，不使用辅助空间，总长度可以超过2^31
+     * 跨段的区间按全局下标划分，下标换算成（段号，段内下标）后访问；区间落在一个段内以后交给单个缓冲区的内省排序
+     * @param data
+     */
+    public static void introSort(LongBuffer[] data){
+        long[] starts = starts(data);
+        long n = starts[data.length];
+        if (n > 1){
+            introSort(data, starts, 0, n - 1, 2 * log2(n));
+        }
+    }
+
+    /**
+     * 把多个缓冲区的[position, limit)按顺序拼成一个序列做稳定的归并排序，总长度可以超过2^31
+     * 先对每段分别归并排序，再以段为单位在data和scratch之间交替合并，读写位置用（段号，段内下标）游标推进
+     * @param data
+     * @param scratch 辅助缓冲区，与data一一对应并且remaining()相同，传null时内部分配
+     */
+    public static void mergeSort(LongBuffer[] data, LongBuffer[] scratch){
+        int m = data.length;
+        if (scratch == null){
+            scratch = new LongBuffer[m];
+            for (int s = 0; s < m; s++){
+                scratch[s] = allocateLongs(data[s].remaining());
+            }
+        }
+        checkLayout(data.length, scratch.length);
+        for (int s = 0; s < m; s++){
+            checkSegment(scratch[s].remaining(), data[s].remaining());
+            mergeSort(data[s], scratch[s]);
+        }
+        LongBuffer[] src = data, dst = scratch;
+        for (int width = 1; width < m; width *= 2){
+            for (int low = 0; low < m; low += 2 * width){
+                int mid = Math.min(m, low + width);
+                merge(src, low, mid, Math.min(m, mid + width), dst);
+            }
+            LongBuffer[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != data){
+            for (int s = 0; s < m; s++){
+                copy(src[s], src[s].position(), data[s], data[s].position(), data[s].remaining());
+            }
+        }
+    }
+
+    //================内部方法=========================
+
+    /**
+     * 把第base / 256个字节的频率换算成每个取值在目标缓冲区组中的起始位置（段号和段内下标）
+     * @return 所有元素这一字节都相同时返回false，这一趟可以跳过
+     */
+    private static boolean cursors(long[] count, int base, long n, Buffer[] dst, int[] segment, int[] offset){
+        for (int d = 0; d < 256; d++){
+            if (count[base + d] == n){
+                return false;
+            }
+        }
+        long sum = 0;
+        int s = 0;
+        long segmentStart = 0;
+        for (int d = 0; d < 256; d++){
+            //找到全局位置sum所在的段，落在段尾时由分配时再换段
+            while (s < dst.length - 1 && sum >= segmentStart + dst[s].remaining()){
+                segmentStart += dst[s].remaining();
+                s++;
+            }
+            segment[d] = s;
+            offset[d] = dst[s].position() + (int) (sum - segmentStart);
+            sum += count[base + d];
+        }
+        return true;
+    }
+
+    /**
+     * 各段在拼成的序列中的起始全局下标，最后一项是总长度
+     */
+    private static long[] starts(Buffer[] data){
+        long[] starts = new long[data.length + 1];
+        for (int s = 0; s < data.length; s++){
+            starts[s + 1] = starts[s] + data[s].remaining();
+        }
+        return starts;
+    }
+
+    /**
+     * 全局下标i所在的段，跳过空段
+     */
+    private static int segmentOf(long[] starts, long i){
+        int low = 0, high = starts.length - 2;
+        while (low < high){
+            int mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= i){
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private static void introSort(IntBuffer a, int start, int end, int depthLimit){
+        while (end - start + 1 > INSERTION_SORT_THRESHOLD){
+            if (depthLimit == 0){
+                heapSort(a, start, end);
+                return;
+            }
+            depthLimit--;
+            int p = partition(a, start, end);
+            if (p - start < end - p){
+                introSort(a, start, p - 1, depthLimit);
+                start = p + 1;
+            } else {
+                introSort(a, p + 1, end, depthLimit);
+                end = p - 1;
+            }
+        }
+        insertionSort(a, start, end + 1);
+    }
+
+    /**
+     * 三数取中后把基准放到start，左右两边向中间扫描，返回基准的最终位置
+     */
+    private static int partition(IntBuffer a, int start, int end){
+        int mid = (start + end) >>> 1;
+        if (a.get(mid) < a.get(start)){
+            swap(a, mid, start);
+        }
+        if (a.get(end) < a.get(start)){
+            swap(a, end, start);
+        }
+        if (a.get(end) < a.get(mid)){
+            swap(a, end, mid);
+        }
+        swap(a, start, mid);
+        int pivot = a.get(start);
+        int i = start, j = end + 1;
+        while (true){
+            //a[end]不小于基准，a[start]就是基准，两个扫描都不会越界
+            do {
+                i++;
+            } while (a.get(i) < pivot);
+            do {
+                j--;
+            } while (pivot < a.get(j));
+            if (i >= j){
+                break;
+            }
+            swap(a, i, j);
+        }
+        swap(a, start, j);
+        return j;
+    }
+
+    private static void heapSort(IntBuffer a, int start, int end){
+        int len = end - start + 1;
+        for (int i = len / 2 - 1; i >= 0; i--){
+            siftDown(a, start, len, i);
+        }
+        for (int last = len - 1; last > 0; last--){
+            swap(a, start, start + last);
+            siftDown(a, start, last, 0);
+        }
+    }
+
+    private static void siftDown(IntBuffer a, int offset, int len, int i){
+        int temp = a.get(offset + i);
+        int child;
+        while ((child = 2 * i + 1) < len){
+            if (child + 1 < len && a.get(offset + child + 1) > a.get(offset + child)){
+                child++;
+            }
+            if (a.get(offset + child) <= temp){
+                break;
+            }
+            a.put(offset + i, a.get(offset + child));
+            i = child;
+        }
+        a.put(offset + i, temp);
+    }
+
+    private static void insertionSort(IntBuffer a, int from, int to){
+        for (int index = from + 1; index < to; index++){
+            int temp = a.get(index);
+            int leftindex = index - 1;
+            while (leftindex >= from && a.get(leftindex) > temp){
+                a.put(leftindex + 1, a.get(leftindex));
+                leftindex--;
+            }
+            a.put(leftindex + 1, temp);
+        }
+    }
+
+    private static void swap(IntBuffer a, int i, int j){
+        int temp = a.get(i);
+        a.put(i, a.get(j));
+        a.put(j, temp);
+    }
+
+    private static void copy(IntBuffer src, int srcFrom, IntBuffer dst, int dstFrom, int n){
+        if (n == 0){
+            return;
+        }
+        IntBuffer in = src.duplicate();
+        in.limit(srcFrom + n).position(srcFrom);
+        IntBuffer out = dst.duplicate();
+        out.limit(dstFrom + n).position(dstFrom);
+        out.put(in);
+    }
+
+    /**
+     * 合并src中第[low, mid)段和第[mid, high)段这两个有序序列，写入dst中相同的段，相等时左边优先
+     */
+    private static void merge(IntBuffer[] src, int low, int mid, int high, IntBuffer[] dst){
+        int is = low, io = src[is].position();
+        int js = mid, jo = js < high ? src[js].position() : 0;
+        int ks = low, ko = dst[ks].position();
+        while (true){
+            //读到段尾时换到下一段
+            while (is < mid && io == src[is].limit()){
+                if (++is < mid){
+                    io = src[is].position();
+                }
+            }
+            while (js < high && jo == src[js].limit()){
+                if (++js < high){
+                    jo = src[js].position();
+                }
+            }
+            if (is == mid || js == high){
+                break;
+            }
+            int x = src[is].get(io), y = src[js].get(jo);
+            while (ko == dst[ks].limit()){
+                ks++;
+                ko = dst[ks].position();
+            }
+            if (y < x){
+                dst[ks].put(ko++, y);
+                jo++;
+            } else {
+                dst[ks].put(ko++, x);
+                io++;
+            }
+        }
+        if (is < mid){
+            copyRest(src, is, io, mid, dst, ks, ko);
+        } else {
+            copyRest(src, js, jo, high, dst, ks, ko);
+        }
+    }
+
+    /**
+     * 把src中从第s段下标o开始、到第end段之前的元素复制到dst中从第ks段下标ko开始的位置，按两边的段边界分块复制
+     */
+    private static void copyRest(IntBuffer[] src, int s, int o, int end, IntBuffer[] dst, int ks, int ko){
+        while (s < end){
+            int n = Math.min(src[s].limit() - o, dst[ks].limit() - ko);
+            copy(src[s], o, dst[ks], ko, n);
+            o += n;
+            ko += n;
+            if (o == src[s].limit() && ++s < end){
+                o = src[s].position();
+            }
+            if (ko == dst[ks].limit() && ks + 1 < dst.length){
+                ks++;
+                ko = dst[ks].position();
+            }
+        }
+    }
+
+    /**
+     * 对全局下标区间[start, end]做内省排序
+     */
+    private static void introSort(IntBuffer[] a, long[] starts, long start, long end, int depthLimit){
+        while (start < end){
+            int s = segmentOf(starts, start);
+            if (end < starts[s + 1]){
+                //区间已经落在一个段内
+                int from = a[s].position() + (int) (start - starts[s]);
+                introSort(a[s], from, from + (int) (end - start), depthLimit);
+                return;
+            }
+            //跨段的短区间没有必要继续划分
+            if (depthLimit == 0 || end - start < INSERTION_SORT_THRESHOLD){
+                heapSort(a, starts, start, end);
+                return;
+            }
+            depthLimit--;
+            long p = partition(a, starts, start, end);
+            if (p - start < end - p){
+                introSort(a, starts, start, p - 1, depthLimit);
+                start = p + 1;
+            } else {
+                introSort(a, starts, p + 1, end, depthLimit);
+                end = p - 1;
+            }
+        }
+    }
+
+    /**
+     * 与partition(IntBuffer, int, int)相同，下标是全局下标
+     */
+    private static long partition(IntBuffer[] a, long[] starts, long start, long end){
+        long mid = (start + end) >>> 1;
+        if (get(a, starts, mid) < get(a, starts, start)){
+            swap(a, starts, mid, start);
+        }
+        if (get(a, starts, end) < get(a, starts, start)){
+            swap(a, starts, end, start);
+        }
+        if (get(a, starts, end) < get(a, starts, mid)){
+            swap(a, starts, end, mid);
+        }
+        swap(a, starts, start, mid);
+        int pivot = get(a, starts, start);
+        long i = start, j = end + 1;
+        while (true){
+            do {
+                i++;
+            } while (get(a, starts, i) < pivot);
+            do {
+                j--;
+            } while (pivot < get(a, starts, j));
+            if (i >= j){
+                break;
+            }
+            swap(a, starts, i, j);
+        }
+        swap(a, starts, start, j);
+        return j;
+    }
+
+    private static void heapSort(IntBuffer[] a, long[] starts, long start, long end){
+        long len = end - start + 1;
+        for (long i = len / 2 - 1; i >= 0; i--){
+            siftDown(a, starts, start, len, i);
+        }
+        for (long last = len - 1; last > 0; last--){
+            swap(a, starts, start, start + last);
+            siftDown(a, starts, start, last, 0);
+        }
+    }
+
+    private static void siftDown(IntBuffer[] a, long[] starts, long offset, long len, long i){
+        int temp = get(a, starts, offset + i);
+        long child;
+        while ((child = 2 * i + 1) < len){
+            if (child + 1 < len && get(a, starts, offset + child + 1) > get(a, starts, offset + child)){
+                child++;
+            }
+            if (get(a, starts, offset + child) <= temp){
+                break;
+            }
+            put(a, starts, offset + i, get(a, starts, offset + child));
+            i = child;
+        }
+        put(a, starts, offset + i, temp);
+    }
+
+    private static int get(IntBuffer[] a, long[] starts, long i){
+        int s = segmentOf(starts, i);
+        return a[s].get(a[s].position() + (int) (i - starts[s]));
+    }
+
+    private static void put(IntBuffer[] a, long[] starts, long i, int v){
+        int s = segmentOf(starts, i);
+        a[s].put(a[s].position() + (int) (i - starts[s]), v);
+    }
+
+    private static void swap(IntBuffer[] a, long[] starts, long i, long j){
+        int temp = get(a, starts, i);
+        put(a, starts, i, get(a, starts, j));
+        put(a, starts, j, temp);
+    }
+
+    private static void introSort(LongBuffer a, int start, int end, int depthLimit){
+        while (end - start + 1 > INSERTION_SORT_THRESHOLD){
+            if (depthLimit == 0){
+                heapSort(a, start, end);
+                return;
+            }
+            depthLimit--;
+            int p = partition(a, start, end);
+            if (p - start < end - p){
+                introSort(a, start, p - 1, depthLimit);
+                start = p + 1;
+            } else {
+                introSort(a, p + 1, end, depthLimit);
+                end = p - 1;
+            }
+        }
+        insertionSort(a, start, end + 1);
+    }
+
+    private static int partition(LongBuffer a, int start, int end){
+        int mid = (start + end) >>> 1;
+        if (a.get(mid) < a.get(start)){
+            swap(a, mid, start);
+        }
+        if (a.get(end) < a.get(start)){
+            swap(a, end, start);
+        }
+        if (a.get(end) < a.get(mid)){
+            swap(a, end, mid);
+        }
+        swap(a, start, mid);
+        long pivot = a.get(start);
+        int i = start, j = end + 1;
+        while (true){
+            do {
+                i++;
+            } while (a.get(i) < pivot);
+            do {
+                j--;
+            } while (pivot < a.get(j));
+            if (i >= j){
+                break;
+            }
+            swap(a, i, j);
+        }
+        swap(a, start, j);
+        return j;
+    }
+
+    private static void heapSort(LongBuffer a, int start, int end){
+        int len = end - start + 1;
+        for (int i = len / 2 - 1; i >= 0; i--){
+            siftDown(a, start, len, i);
+        }
+        for (int last = len - 1; last > 0; last--){
+            swap(a, start, start + last);
+            siftDown(a, start, last, 0);
+        }
+    }
+
+    private static void siftDown(LongBuffer a, int offset, int len, int i){
+        long temp = a.get(offset + i);
+        int child;
+        while ((child = 2 * i + 1) < len){
+            if (child + 1 < len && a.get(offset + child + 1) > a.get(offset + child)){
+                child++;
+            }
+            if (a.get(offset + child) <= temp){
+                break;
+            }
+            a.put(offset + i, a.get(offset + child));
+            i = child;
+        }
+        a.put(offset + i, temp);
+    }
+
+    private static void insertionSort(LongBuffer a, int from, int to){
+        for (int index = from + 1; index < to; index++){
+            long temp = a.get(index);
+            int leftindex = index - 1;
+            while (leftindex >= from && a.get(leftindex) > temp){
+                a.put(leftindex + 1, a.get(leftindex));
+                leftindex--;
+            }
+            a.put(leftindex + 1, temp);
+        }
+    }
+
+    private static void swap(LongBuffer a, int i, int j){
+        long temp = a.get(i);
+        a.put(i, a.get(j));
+        a.put(j, temp);
+    }
+
+    private static void copy(LongBuffer src, int srcFrom, LongBuffer dst, int dstFrom, int n){
+        if (n == 0){
+            return;
+        }
+        LongBuffer in = src.duplicate();
+        in.limit(srcFrom + n).position(srcFrom);
+        LongBuffer out = dst.duplicate();
+        out.limit(dstFrom + n).position(dstFrom);
+        out.put(in);
+    }
+
+    /**
+     * 合并src中第[low, mid)段和第[mid, high)段这两个有序序列，写入dst中相同的段，相等时左边优先
+     */
+    private static void merge(LongBuffer[] src, int low, int mid, int high, LongBuffer[] dst){
+        int is = low, io = src[is].position();
+        int js = mid, jo = js < high ? src[js].position() : 0;
+        int ks = low, ko = dst[ks].position();
+        while (true){
+            //读到段尾时换到下一段
+            while (is < mid && io == src[is].limit()){
+                if (++is < mid){
+                    io = src[is].position();
+                }
+            }
+            while (js < high && jo == src[js].limit()){
+                if (++js < high){
+                    jo = src[js].position();
+                }
+            }
+            if (is == mid || js == high){
+                break;
+            }
+            long x = src[is].get(io), y = src[js].get(jo);
+            while (ko == dst[ks].limit()){
+                ks++;
+                ko = dst[ks].position();
+            }
+            if (y < x){
+                dst[ks].put(ko++, y);
+                jo++;
+            } else {
+                dst[ks].put(ko++, x);
+                io++;
+            }
+        }
+        if (is < mid){
+            copyRest(src, is, io, mid, dst, ks, ko);
+        } else {
+            copyRest(src, js, jo, high, dst, ks, ko);
+        }
+    }
+
+    /**
+     * 把src中从第s段下标o开始、到第end段之前的元素复制到dst中从第ks段下标ko开始的位置，按两边的段边界分块复制
+     */
+    private static void copyRest(LongBuffer[] src, int s, int o, int end, LongBuffer[] dst, int ks, int ko){
+        while (s < end){
+            int n = Math.min(src[s].limit() - o, dst[ks].limit() - ko);
+            copy(src[s], o, dst[ks], ko, n);
+            o += n;
+            ko += n;
+            if (o == src[s].limit() && ++s < end){
+                o = src[s].position();
+            }
+            if (ko == dst[ks].limit() && ks + 1 < dst.length){
+                ks++;
+                ko = dst[ks].position();
+            }
+        }
+    }
+
+    /**
+     * 对全局下标区间[start, end]做内省排序
+     */
+    private static void introSort(LongBuffer[] a, long[] starts, long start, long end, int depthLimit){
+        while (start < end){
+            int s = segmentOf(starts, start);
+            if (end < starts[s + 1]){
+                //区间已经落在一个段内
+                int from = a[s].position() + (int) (start - starts[s]);
+                introSort(a[s], from, from + (int) (end - start), depthLimit);
+                return;
+            }
+            //跨段的短区间没有必要继续划分
+            if (depthLimit == 0 || end - start < INSERTION_SORT_THRESHOLD){
+                heapSort(a, starts, start, end);
+                return;
+            }
+            depthLimit--;
+            long p = partition(a, starts, start, end);
+            if (p - start < end - p){
+                introSort(a, starts, start, p - 1, depthLimit);
+                start = p + 1;
+            } else {
+                introSort(a, starts, p + 1, end, depthLimit);
+                end = p - 1;
+            }
+        }
+    }
+
+    /**
+     * 与partition(LongBuffer, int, int)相同，下标是全局下标
+     */
+    private static long partition(LongBuffer[] a, long[] starts, long start, long end){
+        long mid = (start + end) >>> 1;
+        if (get(a, starts, mid) < get(a, starts, start)){
+            swap(a, starts, mid, start);
+        }
+        if (get(a, starts, end) < get(a, starts, start)){
+            swap(a, starts, end, start);
+        }
+        if (get(a, starts, end) < get(a, starts, mid)){
+            swap(a, starts, end, mid);
+        }
+        swap(a, starts, start, mid);
+        long pivot = get(a, starts, start);
+        long i = start, j = end + 1;
+        while (true){
+            do {
+                i++;
+            } while (get(a, starts, i) < pivot);
+            do {
+                j--;
+            } while (pivot < get(a, starts, j));
+            if (i >= j){
+                break;
+            }
+            swap(a, starts, i, j);
+        }
+        swap(a, starts, start, j);
+        return j;
+    }
+
+    private static void heapSort(LongBuffer[] a, long[] starts, long start, long end){
+        long len = end - start + 1;
+        for (long i = len / 2 - 1; i >= 0; i--){
+            siftDown(a, starts, start, len, i);
+        }
+        for (long last = len - 1; last > 0; last--){
+            swap(a, starts, start, start + last);
+            siftDown(a, starts, start, last, 0);
+        }
+    }
+
+    private static void siftDown(LongBuffer[] a, long[] starts, long offset, long len, long i){
+        long temp = get(a, starts, offset + i);
+        long child;
+        while ((child = 2 * i + 1) < len){
+            if (child + 1 < len && get(a, starts, offset + child + 1) > get(a, starts, offset + child)){
+                child++;
+            }
+            if (get(a, starts, offset + child) <= temp){
+                break;
+            }
+            put(a, starts, offset + i, get(a, starts, offset + child));
+            i = child;
+        }
+        put(a, starts, offset + i, temp);
+    }
+
+    private static long get(LongBuffer[] a, long[] starts, long i){
+        int s = segmentOf(starts, i);
+        return a[s].get(a[s].position() + (int) (i - starts[s]));
+    }
+
+    private static void put(LongBuffer[] a, long[] starts, long i, long v){
+        int s = segmentOf(starts, i);
+        a[s].put(a[s].position() + (int) (i - starts[s]), v);
+    }
+
+    private static void swap(LongBuffer[] a, long[] starts, long i, long j){
+        long temp = get(a, starts, i);
+        put(a, starts, i, get(a, starts, j));
+        put(a, starts, j, temp);
+    }
+
+    private static void checkScratch(int scratchRemaining, int n){
+        if (scratchRemaining < n){
+            throw new IllegalArgumentException("scratch has " + scratchRemaining + " elements, need " + n);
+        }
+    }
+
+    private static void checkSegment(int scratchRemaining, int n){
+        if (scratchRemaining != n){
+            throw new IllegalArgumentException("scratch segment has " + scratchRemaining + " elements, data segment has " + n);
+        }
+    }
+
+    private static void checkLayout(int dataSegments, int scratchSegments){
+        if (dataSegments != scratchSegments){
+            throw new IllegalArgumentException("scratch has " + scratchSegments + " segments, data has " + dataSegments);
+        }
+    }
+
+    private static int log2(int n){
+        return 31 - Integer.numberOfLeadingZeros(n);
+    }
+
+    private static int log2(long n){
+        return 63 - Long.numberOfLeadingZeros(n);
+    }
+
+}
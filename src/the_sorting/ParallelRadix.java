@@ -0,0 +1,255 @@
+package the_sorting;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * 多线程基数排序
+ * 每一趟分三步：
+ * 1. 每个线程统计自己负责的那一段的字节频率
+ * 2. 并行前缀和：各线程分摊256个字节值，按线程顺序累加，得到每个线程在每个桶中的写入位置
+ * 3. 各线程按自己的写入位置并行分配，写入位置互不重叠，不需要加锁
+ * 元素个数低于阈值时退回Radix.lsdSort单线程排序
+ */
+public class ParallelRadix {
+
+    private static final int RADIX = 256;
+
+    /**
+     * 默认的单线程阈值
+     */
+    public static final int DEFAULT_SEQUENTIAL_CUTOFF = 1 << 17;
+
+    private final int threads;
+    private final int cutoff;
+    private final ForkJoinPool pool;
+
+    public static void main(String[] args) {
+        int[] array = {38, 29, 14, 35, 22, 61, 35, 59, 36, 2, -1, -12};
+        ParallelRadix radix = new ParallelRadix(4, 0);
+        radix.sort(array);
+        radix.shutdown();
+        for (int a : array){
+            System.out.println(a);
+        }
+    }
+
+    /**
+     * 线程数取CPU核数，使用默认阈值
+     */
+    public ParallelRadix(){
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_SEQUENTIAL_CUTOFF);
+    }
+
+    /**
+     * @param threads 工作线程数
+     * @param cutoff 元素个数小于它时使用单线程排序
+     */
+    public ParallelRadix(int threads, int cutoff){
+        if (threads < 1){
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.threads = threads;
+        this.cutoff = cutoff;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getCutoff() {
+        return cutoff;
+    }
+
+    /**
+     * 关闭内部线程池
+     */
+    public void shutdown(){
+        pool.shutdown();
+    }
+
+    /**
+     * 对int[]排序
+     * @param array
+     */
+    public void sort(int[] array){
+        int n = array.length;
+        if (n < Math.max(cutoff, threads) || threads == 1){
+            Radix.lsdSort(array);
+            return;
+        }
+        final int[] buffer = new int[n];
+        final int[][] count = new int[threads][RADIX];
+        final int[] total = new int[RADIX];
+
+        int[] src = array, dst = buffer;
+        for (int b = 0; b < 4; b++){
+            final int[] from = src, to = dst;
+            final int shift = b * 8;
+            final int flip = b == 3 ? 0x80 : 0;
+
+            forEachThread(t -> {
+                int[] c = count[t];
+                Arrays.fill(c, 0);
+                for (int i = low(t, n), high = low(t + 1, n); i < high; i++){
+                    c[((from[i] >>> shift) & 0xFF) ^ flip]++;
+                }
+            });
+            if (!prefixSum(count, total, n)){
+                continue;
+            }
+            long startNanos = SortMetrics.ENABLED ? System.nanoTime() : 0;
+            forEachThread(t -> {
+                int[] c = count[t];
+                for (int i = low(t, n), high = low(t + 1, n); i < high; i++){
+                    int v = from[i];
+                    to[c[((v >>> shift) & 0xFF) ^ flip]++] = v;
+                }
+            });
+            if (SortMetrics.ENABLED){
+                SortMetrics.moved(n);
+                SortMetrics.phase(SortMetrics.Phase.SCATTER, startNanos);
+            }
+            src = to;
+            dst = from;
+        }
+        if (src != array){
+            final int[] from = src;
+            forEachThread(t -> System.arraycopy(from, low(t, n), array, low(t, n), low(t + 1, n) - low(t, n)));
+            if (SortMetrics.ENABLED){
+                SortMetrics.moved(n);
+            }
+        }
+    }
+
+    /**
+     * 对long[]排序，共8趟
+     * @param array
+     */
+    public void sort(long[] array){
+        int n = array.length;
+        if (n < Math.max(cutoff, threads) || threads == 1){
+            Radix.lsdSort(array);
+            return;
+        }
+        final long[] buffer = new long[n];
+        final int[][] count = new int[threads][RADIX];
+        final int[] total = new int[RADIX];
+
+        long[] src = array, dst = buffer;
+        for (int b = 0; b < 8; b++){
+            final long[] from = src, to = dst;
+            final int shift = b * 8;
+            final int flip = b == 7 ? 0x80 : 0;
+
+            forEachThread(t -> {
+                int[] c = count[t];
+                Arrays.fill(c, 0);
+                for (int i = low(t, n), high = low(t + 1, n); i < high; i++){
+                    c[(int) ((from[i] >>> shift) & 0xFF) ^ flip]++;
+                }
+            });
+            if (!prefixSum(count, total, n)){
+                continue;
+            }
+            long startNanos = SortMetrics.ENABLED ? System.nanoTime() : 0;
+            forEachThread(t -> {
+                int[] c = count[t];
+                for (int i = low(t, n), high = low(t + 1, n); i < high; i++){
+                    long v = from[i];
+                    to[c[(int) ((v >>> shift) & 0xFF) ^ flip]++] = v;
+                }
+            });
+            if (SortMetrics.ENABLED){
+                SortMetrics.moved(n);
+                SortMetrics.phase(SortMetrics.Phase.SCATTER, startNanos);
+            }
+            src = to;
+            dst = from;
+        }
+        if (src != array){
+            final long[] from = src;
+            forEachThread(t -> System.arraycopy(from, low(t, n), array, low(t, n), low(t + 1, n) - low(t, n)));
+            if (SortMetrics.ENABLED){
+                SortMetrics.moved(n);
+            }
+        }
+    }
+
+    /**
+     * 把各线程的频率转换为写入位置，count[t][d]变为线程t在桶d中的第一个写入下标
+     * 先由各线程分摊字节值，沿线程方向做前缀和并求出每个桶的总数，再对256个总数做一次前缀和
+     * @return 所有元素落在同一个桶中时返回false，这一趟可以跳过
+     */
+    private boolean prefixSum(final int[][] count, final int[] total, int n){
+        forEachThread(t -> {
+            for (int d = RADIX * t / threads, high = RADIX * (t + 1) / threads; d < high; d++){
+                int sum = 0;
+                for (int[] c : count){
+                    int v = c[d];
+                    c[d] = sum;
+                    sum += v;
+                }
+                total[d] = sum;
+            }
+        });
+        int sum = 0;
+        for (int d = 0; d < RADIX; d++){
+            int v = total[d];
+            if (v == n){
+                return false;
+            }
+            total[d] = sum;
+            sum += v;
+        }
+        forEachThread(t -> {
+            int[] c = count[t];
+            for (int d = 0; d < RADIX; d++){
+                c[d] += total[d];
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 线程t负责的那一段的起始下标
+     */
+    private int low(int t, int n){
+        return (int) ((long) n * t / threads);
+    }
+
+    /**
+     * 在线程池中并行执行body(0) ... body(threads - 1)，全部完成后返回
+     */
+    private void forEachThread(IntConsumer body){
+        pool.invoke(new Phase(body, 0, threads));
+    }
+
+    private static class Phase extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IntConsumer body;
+        private final int low;
+        private final int high;
+
+        Phase(IntConsumer body, int low, int high){
+            this.body = body;
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        protected void compute() {
+            if (high - low == 1){
+                body.accept(low);
+                return;
+            }
+            int mid = (low + high) >>> 1;
+            invokeAll(new Phase(body, low, mid), new Phase(body, mid, high));
+        }
+    }
+
+}
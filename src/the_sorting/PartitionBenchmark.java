@@ -0,0 +1,136 @@
+package the_sorting;
+
+/**
+ * 划分方式的基准测试：QuickSort原来的扫描划分、introSort的划分、块划分
+ * 分别测量单次划分和完整排序每个元素的耗时
+ * classic的完整排序就是Fast.QuickSort，它在有序和大量重复的数据上递归过深会栈溢出，只在RANDOM上测量，其他分布输出n/a
+ *
+ * JVM内无法读取硬件计数器，分支预测失败次数和IPC需要在外部用perf统计，例如：
+ * perf stat -e cycles,instructions,branches,branch-misses java the_sorting.PartitionBenchmark -mode block -dist RANDOM
+ * 分别用-mode classic / hoare / block运行，对比branch-misses和instructions / cycles
+ *
+ * 用法：java the_sorting.PartitionBenchmark [-mode all|classic|hoare|block] [-dist RANDOM,ZIPF] [-size 1000000] [-time 1000]
+ */
+public class PartitionBenchmark {
+
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        String mode = "all";
+        String dist = "RANDOM,ZIPF,FEW_UNIQUE,SORTED_NOISE";
+        int size = 1_000_000;
+        long millis = 1000;
+        for (int i = 0; i + 1 < args.length; i += 2){
+            switch (args[i]){
+                case "-mode":
+                    mode = args[i + 1];
+                    break;
+                case "-dist":
+                    dist = args[i + 1];
+                    break;
+                case "-size":
+                    size = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-time":
+                    millis = Long.parseLong(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        System.out.printf("%-14s %-8s %16s %16s%n", "distribution", "mode", "partition ns/el", "sort ns/el");
+        for (String d : dist.split(",")){
+            Distribution distribution = Distribution.valueOf(d);
+            int[] data = distribution.generate(size, 42);
+            for (String m : new String[]{"classic", "hoare", "block"}){
+                if (mode.equals("all") || mode.equals(m)){
+                    boolean fullSort = !m.equals("classic") || distribution == Distribution.RANDOM;
+                    //第一轮预热
+                    measure(m, data, millis, fullSort);
+                    double[] result = measure(m, data, millis, fullSort);
+                    String sort = fullSort ? String.format("%.3f", result[1]) : "n/a";
+                    System.out.printf("%-14s %-8s %16.3f %16s%n", d, m, result[0], sort);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param fullSort 是否测量完整排序，为false时第二项是NaN
+     * @return {单次划分每个元素的纳秒数, 完整排序每个元素的纳秒数}
+     */
+    private static double[] measure(String mode, int[] data, long millis, boolean fullSort){
+        int n = data.length;
+        int[] work = new int[n];
+        int[] offsetsLeft = new int[128], offsetsRight = new int[128];
+        long partitionNanos = 0, sortNanos = 0, partitions = 0, sorts = 0;
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        while (System.nanoTime() < deadline){
+            System.arraycopy(data, 0, work, 0, n);
+            long start = System.nanoTime();
+            int p;
+            switch (mode){
+                case "classic":
+                    p = classicPartition(work, 0, n - 1);
+                    break;
+                case "hoare":
+                    p = Fast.partition(work, 0, n - 1);
+                    break;
+                default:
+                    p = Fast.blockPartition(work, 0, n - 1, offsetsLeft, offsetsRight);
+                    break;
+            }
+            partitionNanos += System.nanoTime() - start;
+            partitions++;
+            sink += p;
+        }
+        if (!fullSort){
+            return new double[]{(double) partitionNanos / partitions / n, Double.NaN};
+        }
+        deadline = System.nanoTime() + millis * 1_000_000L;
+        while (System.nanoTime() < deadline){
+            System.arraycopy(data, 0, work, 0, n);
+            long start = System.nanoTime();
+            switch (mode){
+                case "classic":
+                    Fast.QuickSort(work, 0, n - 1);
+                    break;
+                case "hoare":
+                    Fast.introSort(work, 0, n - 1);
+                    break;
+                default:
+                    Fast.blockQuickSort(work, 0, n - 1);
+                    break;
+            }
+            sortNanos += System.nanoTime() - start;
+            sorts++;
+            sink += work[n / 2];
+        }
+        return new double[]{(double) partitionNanos / partitions / n, (double) sortNanos / sorts / n};
+    }
+
+    /**
+     * QuickSort中原来的划分，以array[start]为基准
+     */
+    private static int classicPartition(int[] array, int start, int end){
+        int left = start, right = end, temp = array[start], tap;
+        while (left < right){
+            while (temp <= array[right] && left < right){
+                right--;
+            }
+            while (temp >= array[left] && left < right){
+                left++;
+            }
+            if (left < right){
+                tap = array[right];
+                array[right] = array[left];
+                array[left] = tap;
+            }
+        }
+        array[start] = array[left];
+        array[left] = temp;
+        return left;
+    }
+
+}
@@ -7,6 +7,11 @@ import java.util.ArrayList;
  */
 public class Radix {
 
+    /**
+     * 元素个数小于它时直接用SmallSort（long[]用插入排序），基数排序的固定开销不划算
+     */
+    private static final int SMALL_SORT_THRESHOLD = 64;
+
     public static void main(String[] args) {
 //        int[] array = {38, 29, 14, 35, 22, 61, 35, 59, 36, 2, -1, -12};
         int[] array = {21,56,88,195,354,1,35,12,6,7, 15, 23};
@@ -19,41 +24,14 @@ public class Radix {
 
 
 
+    /**
+     * 基数排序，负数也可以
+     * 原来的实现用 (x / div) % 10 取位，负数得到负的下标，count[-3]越界；现在直接调用按字节的lsdSort，支持任意int
+     * @param array
+     * @param max 最大的十进制位数，lsdSort按字节处理全部32位，不再需要这个参数，保留只是为了兼容原来的调用
+     */
     public static void radixSort(int[] array, int max){
-        int[] count = new int[array.length];
-
-        int[] bucket = new int[array.length];
-
-        for (int k = 1; k <= max; k++){
-
-            for (int i = 0; i < array.length; i++){
-                count[i] = 0;
-            }
-
-            for (int i = 0; i < array.length; i++){
-                count[getFigure(array[i], k)]++;
-            }
-
-            for (int i = 1; i < array.length; i++){
-                count[i] = count[i] + count[i -1];
-            }
-
-            for (int i = array.length -1; i >= 0; i--){
-                int j = getFigure(array[i], k);
-                bucket[count[j] - 1] = array[i];
-                count[j]--;
-            }
-
-            for (int i = 0, j = 0; j < array.length; i++, j++){
-                array[i] = bucket[j];
-            }
-        }
-    }
-
-
-    private static int getFigure(int i, int k){
-        int[] a = {1, 10, 100};
-        return (i / a[k-1]) % 10;
+        lsdSort(array);
     }
 
 
@@ -94,4 +72,192 @@ public class Radix {
         return array;
     }
 
+
+    //================按字节的LSD基数排序（无装箱，支持负数）=========================
+
+    /**
+     * 按字节的LSD基数排序
+     * @param array
+     */
+    public static void lsdSort(int[] array){
+        if (array == null || array.length < 2){
+            return;
+        }
+        lsdSort(array, 0, array.length, null);
+    }
+
+    /**
+     * 对区间[from, to)做按字节的LSD基数排序
+     * 1. 每次取8位作为一位，共4趟，最高字节翻转符号位，负数排在正数前面
+     * 2. 一次遍历同时统计4个字节的频率
+     * 3. 某一字节所有元素都相同时跳过这一趟
+     * 4. 整个排序只使用一个辅助数组，在原数组和辅助数组之间交替分配
+     * @param array
+     * @param from
+     * @param to
+     * @param buffer 辅助数组，长度至少为to - from，传null时内部分配
+     */
+    public static void lsdSort(int[] array, int from, int to, int[] buffer){
+        int n = to - from;
+        if (n < SMALL_SORT_THRESHOLD){
+            SmallSort.sort(array, from, to);
+            return;
+        }
+        if (buffer == null || buffer.length < n){
+            buffer = new int[n];
+        }
+
+        long startNanos = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        int passes = 0;
+        //4个字节的频率统计放在一个数组里，第b个字节占[b * 256, b * 256 + 256)
+        int[] count = new int[4 * 256];
+        for (int i = from; i < to; i++){
+            int v = array[i];
+            count[v & 0xFF]++;
+            count[256 + ((v >>> 8) & 0xFF)]++;
+            count[512 + ((v >>> 16) & 0xFF)]++;
+            count[768 + ((v >>> 24) ^ 0x80)]++;
+        }
+
+        int[] src = array, dst = buffer;
+        int srcFrom = from, dstFrom = 0;
+        for (int b = 0; b < 4; b++){
+            int base = b * 256;
+            int shift = b * 8;
+            //这一字节所有元素都相同，分配后顺序不变，跳过
+            int first = (src[srcFrom] >>> shift) & 0xFF;
+            if (b == 3){
+                first ^= 0x80;
+            }
+            if (count[base + first] == n){
+                continue;
+            }
+            //频率转换为起始位置
+            int sum = 0;
+            for (int i = base; i < base + 256; i++){
+                int c = count[i];
+                count[i] = sum;
+                sum += c;
+            }
+            int srcTo = srcFrom + n;
+            if (SortMetrics.ENABLED){
+                passes++;
+            }
+            if (b == 3){
+                for (int i = srcFrom; i < srcTo; i++){
+                    int v = src[i];
+                    dst[dstFrom + count[base + ((v >>> 24) ^ 0x80)]++] = v;
+                }
+            } else {
+                for (int i = srcFrom; i < srcTo; i++){
+                    int v = src[i];
+                    dst[dstFrom + count[base + ((v >>> shift) & 0xFF)]++] = v;
+                }
+            }
+            int[] t = src;
+            src = dst;
+            dst = t;
+            int f = srcFrom;
+            srcFrom = dstFrom;
+            dstFrom = f;
+        }
+        //最后一趟结果在辅助数组中时复制回原数组
+        if (src != array){
+            System.arraycopy(src, srcFrom, array, from, n);
+        }
+        if (SortMetrics.ENABLED){
+            //每一趟分配移动全部n个元素，奇数趟时还要复制回原数组
+            SortMetrics.moved((long) n * (passes + (passes & 1)));
+            SortMetrics.phase(SortMetrics.Phase.SCATTER, startNanos);
+        }
+    }
+
+    /**
+     * long[]的按字节LSD基数排序，共8趟，做法与int[]版本相同
+     * @param array
+     */
+    public static void lsdSort(long[] array){
+        if (array == null || array.length < 2){
+            return;
+        }
+        lsdSort(array, 0, array.length, null);
+    }
+
+    /**
+     * 对区间[from, to)做按字节的LSD基数排序
+     * @param array
+     * @param from
+     * @param to
+     * @param buffer 辅助数组，长度至少为to - from，传null时内部分配
+     */
+    public static void lsdSort(long[] array, int from, int to, long[] buffer){
+        int n = to - from;
+        if (n < SMALL_SORT_THRESHOLD){
+            for (int index = from + 1; index < to; index++){
+                long temp = array[index];
+                int leftindex = index - 1;
+                while (leftindex >= from && array[leftindex] > temp){
+                    array[leftindex + 1] = array[leftindex];
+                    leftindex--;
+                }
+                array[leftindex + 1] = temp;
+            }
+            return;
+        }
+        if (buffer == null || buffer.length < n){
+            buffer = new long[n];
+        }
+
+        long startNanos = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        int passes = 0;
+        int[] count = new int[8 * 256];
+        for (int i = from; i < to; i++){
+            long v = array[i];
+            for (int b = 0; b < 7; b++){
+                count[b * 256 + (int) ((v >>> (b * 8)) & 0xFF)]++;
+            }
+            count[7 * 256 + (int) ((v >>> 56) ^ 0x80)]++;
+        }
+
+        long[] src = array, dst = buffer;
+        int srcFrom = from, dstFrom = 0;
+        for (int b = 0; b < 8; b++){
+            int base = b * 256;
+            int shift = b * 8;
+            int flip = b == 7 ? 0x80 : 0;
+            int first = (int) ((src[srcFrom] >>> shift) & 0xFF) ^ flip;
+            if (count[base + first] == n){
+                continue;
+            }
+            int sum = 0;
+            for (int i = base; i < base + 256; i++){
+                int c = count[i];
+                count[i] = sum;
+                sum += c;
+            }
+            int srcTo = srcFrom + n;
+            if (SortMetrics.ENABLED){
+                passes++;
+            }
+            for (int i = srcFrom; i < srcTo; i++){
+                long v = src[i];
+                dst[dstFrom + count[base + ((int) ((v >>> shift) & 0xFF) ^ flip)]++] = v;
+            }
+            long[] t = src;
+            src = dst;
+            dst = t;
+            int f = srcFrom;
+            srcFrom = dstFrom;
+            dstFrom = f;
+        }
+        if (src != array){
+            System.arraycopy(src, srcFrom, array, from, n);
+        }
+        if (SortMetrics.ENABLED){
+            //每一趟分配移动全部n个元素，奇数趟时还要复制回原数组
+            SortMetrics.moved((long) n * (passes + (passes & 1)));
+            SortMetrics.phase(SortMetrics.Phase.SCATTER, startNanos);
+        }
+    }
+
 }
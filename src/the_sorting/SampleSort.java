@@ -0,0 +1,555 @@
+package the_sorting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * 并行原地采样排序（参照IPS4o）
+ * 每一层把区间按采样得到的分割点分成最多256个桶，再对各个桶递归，每层分四步：
+ * 1. 分类：每个线程负责一段，用无分支的搜索树给元素分桶，先放入线程自己的缓冲块，缓冲块满了就整块写回本段的开头
+ * 2. 整理：按桶的大小算出每个桶对齐到块边界的区域，把落在每个区域中的满块移到区域开头
+ * 3. 块置换：多个线程同时把满块交换到所属桶的区域中，每个桶的读写位置打包在一个原子变量里，不需要加锁
+ * 4. 收尾：桶的边界不一定对齐块，把越界的部分和各线程缓冲块中剩下的元素填到桶的首尾空位
+ * 额外内存只有每个线程 桶数 * 块大小 的缓冲块，与n无关。分完桶后各个桶在ForkJoinPool中并行递归
+ */
+public class SampleSort {
+
+    /**
+     * 每块的元素个数
+     */
+    private static final int BLOCK = 256;
+
+    private static final int MAX_LOG_BUCKETS = 8;
+
+    /**
+     * 区间长度小于它时改用块划分的快速排序
+     */
+    private static final int BASE_CASE = 1 << 14;
+
+    /**
+     * 区间长度不小于它时这一层的分类和置换也并行执行
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    public static void main(String[] args) {
+        int[] array = {38, 29, 14, 35, 22, 61, 35, 59, 36, 2, -1, -12};
+        parallelSort(array);
+        for (int a : array){
+            System.out.println(a);
+        }
+    }
+
+    /**
+     * 使用公共ForkJoinPool并行排序
+     * @param array
+     */
+    public static void parallelSort(int[] array){
+        parallelSort(array, 0, array.length, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 对区间[from, to)并行排序，线程数为pool的并行度
+     * @param array
+     * @param from
+     * @param to
+     * @param pool
+     */
+    public static void parallelSort(int[] array, int from, int to, ForkJoinPool pool){
+        if (to - from < BASE_CASE){
+            Fast.blockQuickSort(array, from, to - 1);
+            return;
+        }
+        pool.invoke(new SortTask(array, from, to, pool.getParallelism(), 1));
+    }
+
+    /**
+     * 单线程原地排序，对区间[from, to)
+     * @param array
+     * @param from
+     * @param to
+     */
+    public static void sort(int[] array, int from, int to){
+        if (to - from < BASE_CASE){
+            Fast.blockQuickSort(array, from, to - 1);
+            return;
+        }
+        int[] bounds = new Step(array, from, to, 1).run();
+        if (bounds == null){
+            return;
+        }
+        if (SortMetrics.ENABLED){
+            SortMetrics.enter();
+        }
+        for (int b = 0; b + 1 < bounds.length; b++){
+            sort(array, bounds[b], bounds[b + 1]);
+        }
+        if (SortMetrics.ENABLED){
+            SortMetrics.exit();
+        }
+    }
+
+    private static class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] array;
+        private final int from;
+        private final int to;
+        private final int threads;
+        /**
+         * 递归层数，子任务可能在其他线程中执行，不能用SortMetrics.enter()
+         */
+        private final int depth;
+
+        SortTask(int[] array, int from, int to, int threads, int depth){
+            this.array = array;
+            this.from = from;
+            this.to = to;
+            this.threads = threads;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (SortMetrics.ENABLED){
+                SortMetrics.depth(depth);
+            }
+            if (to - from < BASE_CASE){
+                Fast.blockQuickSort(array, from, to - 1);
+                return;
+            }
+            int stepThreads = to - from >= PARALLEL_THRESHOLD ? threads : 1;
+            int[] bounds = new Step(array, from, to, stepThreads).run();
+            if (bounds == null){
+                return;
+            }
+            List<SortTask> tasks = new ArrayList<>();
+            for (int b = 0; b + 1 < bounds.length; b++){
+                if (bounds[b + 1] - bounds[b] > 1){
+                    tasks.add(new SortTask(array, bounds[b], bounds[b + 1], threads, depth + 1));
+                }
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * 一层划分
+     */
+    private static class Step {
+        private final int[] a;
+        private final int from;
+        private final int to;
+        private final int n;
+        private final int threads;
+
+        private int k;
+        private int logK;
+        /**
+         * 搜索树，tree[1..k-1]，按完全二叉树存放分割点
+         */
+        private int[] tree;
+
+        private int[] stripeStart;
+        private int[] writeEnd;
+        private int[][] buffers;
+        private int[][] bufferCount;
+        private int[][] fullBlocks;
+
+        /**
+         * 相对from的桶起点，以及对齐到块边界的桶区域起点
+         */
+        private int[] bucketStart;
+        private int[] alignedStart;
+        private int[] blockCount;
+
+        private AtomicLongArray pointers;
+        private AtomicIntegerArray reading;
+        private int[] initialRead;
+        private int[] overflow;
+        private volatile int overflowBucket = -1;
+        private int[][] spill;
+
+        Step(int[] a, int from, int to, int threads){
+            this.a = a;
+            this.from = from;
+            this.to = to;
+            this.n = to - from;
+            this.threads = threads;
+        }
+
+        /**
+         * @return 各个桶的边界（绝对下标，长度为k + 1）；区间已经在这一步排好时返回null
+         */
+        int[] run(){
+            long startNanos = SortMetrics.ENABLED ? System.nanoTime() : 0;
+            if (!buildTree()){
+                Fast.threeWaySort(a, from, to - 1);
+                return null;
+            }
+            stripeStart = new int[threads + 1];
+            int stripe = (int) ((((long) n + threads - 1) / threads + BLOCK - 1) / BLOCK * BLOCK);
+            for (int t = 0; t <= threads; t++){
+                stripeStart[t] = from + (int) Math.min(n, (long) t * stripe);
+            }
+            writeEnd = new int[threads];
+            buffers = new int[threads][];
+            bufferCount = new int[threads][];
+            fullBlocks = new int[threads][];
+            forEach(threads, this::classify);
+
+            computeBuckets();
+            forEach(threads, t -> {
+                for (int b = k * t / threads, end = k * (t + 1) / threads; b < end; b++){
+                    compact(b);
+                }
+            });
+            forEach(threads, this::permute);
+            spill = new int[k][];
+            forEach(threads, t -> {
+                for (int b = k * t / threads, end = k * (t + 1) / threads; b < end; b++){
+                    saveSpill(b);
+                }
+            });
+            forEach(threads, t -> {
+                for (int b = k * t / threads, end = k * (t + 1) / threads; b < end; b++){
+                    fillGaps(b);
+                }
+            });
+
+            int[] bounds = new int[k + 1];
+            for (int b = 0; b <= k; b++){
+                bounds[b] = from + bucketStart[b];
+            }
+            //所有元素落在同一个桶中，说明没有进展，改用三路划分
+            for (int b = 0; b < k; b++){
+                if (bounds[b + 1] - bounds[b] == n){
+                    Fast.threeWaySort(a, from, to - 1);
+                    return null;
+                }
+            }
+            if (SortMetrics.ENABLED){
+                //搜索树没有分支，每个元素恰好比较logK次；移动次数在各步复制的地方统计
+                SortMetrics.compared((long) n * logK);
+                SortMetrics.phase(SortMetrics.Phase.PARTITION, startNanos);
+            }
+            return bounds;
+        }
+
+        /**
+         * 在区间开头随机取样并排序，选出分割点，建立搜索树
+         * @return 样本中只有一种取值时返回false
+         */
+        private boolean buildTree(){
+            int log = 31 - Integer.numberOfLeadingZeros(n);
+            logK = Math.max(1, Math.min(MAX_LOG_BUCKETS, log - 10));
+            k = 1 << logK;
+            int oversample = Math.max(1, (int) (0.2 * log));
+            int sampleSize = Math.min(n, oversample * k - 1);
+            long seed = 0x9E3779B97F4A7C15L ^ n;
+            for (int i = 0; i < sampleSize; i++){
+                seed ^= seed << 13;
+                seed ^= seed >>> 7;
+                seed ^= seed << 17;
+                int j = i + (int) ((seed >>> 1) % (n - i));
+                int temp = a[from + i];
+                a[from + i] = a[from + j];
+                a[from + j] = temp;
+            }
+            if (SortMetrics.ENABLED){
+                SortMetrics.moved(2L * sampleSize);
+            }
+            Fast.introSort(a, from, from + sampleSize - 1);
+
+            //等间隔取k - 1个分割点并去重
+            int[] splitters = new int[k - 1];
+            int unique = 0;
+            for (int i = 1; i < k; i++){
+                int v = a[from + (int) ((long) i * sampleSize / k)];
+                if (unique == 0 || splitters[unique - 1] != v){
+                    splitters[unique++] = v;
+                }
+            }
+            if (unique == 1 && a[from] == a[from + sampleSize - 1]){
+                return false;
+            }
+            //去重后缩小桶数，多出来的位置用最大的分割点补齐
+            logK = Math.max(1, 32 - Integer.numberOfLeadingZeros(unique));
+            k = 1 << logK;
+            int[] padded = new int[k - 1];
+            for (int i = 0; i < k - 1; i++){
+                padded[i] = splitters[Math.min(i, unique - 1)];
+            }
+            tree = new int[k];
+            fill(padded, 1, 0, k - 1);
+            return true;
+        }
+
+        private void fill(int[] splitters, int node, int low, int high){
+            if (node >= k){
+                return;
+            }
+            int mid = (low + high) >>> 1;
+            tree[node] = splitters[mid];
+            fill(splitters, 2 * node, low, mid);
+            fill(splitters, 2 * node + 1, mid + 1, high);
+        }
+
+        /**
+         * 第b个桶包含 (分割点[b-1], 分割点[b]] 中的元素，每层只做一次比较，没有分支
+         */
+        private int bucketOf(int v){
+            int i = 1;
+            for (int l = 0; l < logK; l++){
+                i = 2 * i + (v > tree[i] ? 1 : 0);
+            }
+            return i - k;
+        }
+
+        /**
+         * 第1步：线程t给自己那一段分桶，缓冲块满了就写回本段开头
+         * 写回的位置不会超过已经读过的位置，所以可以原地进行
+         */
+        private void classify(int t){
+            int[] buffer = new int[k * BLOCK];
+            int[] count = new int[k];
+            int[] full = new int[k];
+            int write = stripeStart[t];
+            for (int i = stripeStart[t], end = stripeStart[t + 1]; i < end; i++){
+                int v = a[i];
+                int b = bucketOf(v);
+                int c = count[b];
+                buffer[b * BLOCK + c] = v;
+                if (++c == BLOCK){
+                    System.arraycopy(buffer, b * BLOCK, a, write, BLOCK);
+                    write += BLOCK;
+                    full[b]++;
+                    c = 0;
+                }
+                count[b] = c;
+            }
+            if (SortMetrics.ENABLED){
+                SortMetrics.moved((stripeStart[t + 1] - stripeStart[t]) + (write - stripeStart[t]));
+            }
+            writeEnd[t] = write;
+            buffers[t] = buffer;
+            bufferCount[t] = count;
+            fullBlocks[t] = full;
+        }
+
+        /**
+         * 统计每个桶的大小、桶的起点和对齐后的区域，初始化块置换用的读写位置
+         */
+        private void computeBuckets(){
+            bucketStart = new int[k + 1];
+            alignedStart = new int[k + 1];
+            blockCount = new int[k];
+            int sum = 0;
+            for (int b = 0; b < k; b++){
+                bucketStart[b] = sum;
+                alignedStart[b] = roundUp(sum);
+                for (int t = 0; t < threads; t++){
+                    sum += fullBlocks[t][b] * BLOCK + bufferCount[t][b];
+                    blockCount[b] += fullBlocks[t][b];
+                }
+            }
+            bucketStart[k] = sum;
+            alignedStart[k] = roundUp(sum);
+            pointers = new AtomicLongArray(k);
+            reading = new AtomicIntegerArray(k);
+            initialRead = new int[k];
+            overflow = new int[BLOCK];
+        }
+
+        /**
+         * 第2步：把落在第b个桶区域中的满块移到区域开头，区域之间互不重叠，可以并行
+         */
+        private void compact(int b){
+            int regionStart = from + alignedStart[b];
+            int regionEnd = Math.min(to, from + alignedStart[b + 1]);
+            int dst = regionStart;
+            for (int t = 0; t < threads; t++){
+                int s = Math.max(regionStart, stripeStart[t]);
+                int e = Math.min(regionEnd, writeEnd[t]);
+                if (s < e){
+                    if (s != dst){
+                        System.arraycopy(a, s, a, dst, e - s);
+                        if (SortMetrics.ENABLED){
+                            SortMetrics.moved(e - s);
+                        }
+                    }
+                    dst += e - s;
+                }
+            }
+            //以块为单位，w为下一个要写的块，[w, r)为还没有处理的满块
+            int w = alignedStart[b] / BLOCK;
+            int r = w + (dst - regionStart) / BLOCK;
+            pointers.set(b, ((long) w << 32) | r);
+            initialRead[b] = r;
+        }
+
+        /**
+         * 第3步：从第t个线程负责的桶开始，取出还没处理的满块，放进所属桶的下一个位置；
+         * 如果那个位置上也是没处理的满块，就把它换出来继续放，直到放进一个空位
+         */
+        private void permute(int t){
+            int[] current = new int[BLOCK];
+            int[] other = new int[BLOCK];
+            int b = k * t / threads;
+            int empty = 0;
+            while (empty < k){
+                if (!claim(b, current)){
+                    b = (b + 1) % k;
+                    empty++;
+                    continue;
+                }
+                while (true){
+                    int d = bucketOf(current[0]);
+                    long v = pointers.getAndAdd(d, 1L << 32);
+                    int w = (int) (v >>> 32), r = (int) v;
+                    int pos = from + w * BLOCK;
+                    if (w < r){
+                        System.arraycopy(a, pos, other, 0, BLOCK);
+                        System.arraycopy(current, 0, a, pos, BLOCK);
+                        if (SortMetrics.ENABLED){
+                            SortMetrics.moved(2 * BLOCK);
+                        }
+                        int[] temp = current;
+                        current = other;
+                        other = temp;
+                        continue;
+                    }
+                    //这个位置原来是满块，等取走它的线程读完
+                    if (w < initialRead[d]){
+                        while (reading.get(d) != 0){
+                            Thread.yield();
+                        }
+                    }
+                    if (pos + BLOCK > to){
+                        System.arraycopy(current, 0, overflow, 0, BLOCK);
+                        overflowBucket = d;
+                    } else {
+                        System.arraycopy(current, 0, a, pos, BLOCK);
+                    }
+                    if (SortMetrics.ENABLED){
+                        SortMetrics.moved(BLOCK);
+                    }
+                    break;
+                }
+            }
+        }
+
+        /**
+         * 从第b个桶的末尾取一个还没处理的满块
+         */
+        private boolean claim(int b, int[] block){
+            reading.incrementAndGet(b);
+            while (true){
+                long v = pointers.get(b);
+                int w = (int) (v >>> 32), r = (int) v;
+                if (r <= w){
+                    reading.decrementAndGet(b);
+                    return false;
+                }
+                if (pointers.compareAndSet(b, v, v - 1)){
+                    System.arraycopy(a, from + (r - 1) * BLOCK, block, 0, BLOCK);
+                    if (SortMetrics.ENABLED){
+                        SortMetrics.moved(BLOCK);
+                    }
+                    reading.decrementAndGet(b);
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * 第4步的前半部分：第b个桶写入的块超出桶终点的部分属于下一个桶的位置，先取出来
+         * 写到数组末尾之外的那一块在overflow中
+         */
+        private void saveSpill(int b){
+            int regionStart = from + alignedStart[b];
+            int writtenEnd = regionStart + blockCount[b] * BLOCK;
+            //没有写入满块的小桶，对齐后的区域起点可能已经在桶终点之后
+            int spillStart = Math.max(regionStart, from + bucketStart[b + 1]);
+            int size = Math.max(0, writtenEnd - spillStart);
+            int[] s = new int[size];
+            if (overflowBucket == b){
+                int slot = writtenEnd - BLOCK;
+                int inArray = spillStart - slot;
+                System.arraycopy(overflow, 0, a, slot, inArray);
+                System.arraycopy(overflow, inArray, s, 0, size);
+                if (SortMetrics.ENABLED){
+                    SortMetrics.moved(inArray + size);
+                }
+            } else if (size > 0){
+                System.arraycopy(a, spillStart, s, 0, size);
+                if (SortMetrics.ENABLED){
+                    SortMetrics.moved(size);
+                }
+            }
+            spill[b] = s;
+        }
+
+        /**
+         * 第4步的后半部分：把取出的越界元素和各线程缓冲块中属于第b个桶的元素，填到桶开头和结尾的空位
+         */
+        private void fillGaps(int b){
+            int exactStart = from + bucketStart[b];
+            int exactEnd = from + bucketStart[b + 1];
+            int regionStart = from + alignedStart[b];
+            int writtenEnd = regionStart + blockCount[b] * BLOCK;
+            int headEnd = Math.min(regionStart, exactEnd);
+            int tailStart = Math.max(writtenEnd, headEnd);
+
+            int pos = exactStart;
+            int[] s = spill[b];
+            for (int t = -1; t < threads; t++){
+                int[] src = t < 0 ? s : buffers[t];
+                int offset = t < 0 ? 0 : b * BLOCK;
+                int len = t < 0 ? s.length : bufferCount[t][b];
+                while (len > 0){
+                    if (pos == headEnd){
+                        pos = tailStart;
+                    }
+                    int limit = pos < headEnd ? headEnd : exactEnd;
+                    int c = Math.min(len, limit - pos);
+                    System.arraycopy(src, offset, a, pos, c);
+                    if (SortMetrics.ENABLED){
+                        SortMetrics.moved(c);
+                    }
+                    pos += c;
+                    offset += c;
+                    len -= c;
+                }
+            }
+        }
+
+        private static int roundUp(int x){
+            return (x + BLOCK - 1) / BLOCK * BLOCK;
+        }
+
+        /**
+         * 执行body(0) ... body(count - 1)，多线程时在ForkJoinPool中并行
+         */
+        private void forEach(int count, IntConsumer body){
+            if (threads == 1){
+                for (int t = 0; t < count; t++){
+                    body.accept(t);
+                }
+                return;
+            }
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(count);
+            for (int t = 0; t < count; t++){
+                final int index = t;
+                tasks.add(ForkJoinTask.adapt(() -> body.accept(index)));
+            }
+            ForkJoinTask.invokeAll(tasks);
+        }
+    }
+
+}
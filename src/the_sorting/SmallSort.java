@@ -0,0 +1,816 @@
+package the_sorting;
+
+/**
+ * 小数组排序，作为各个分治排序的叶子
+ * 1. n <= 16：排序网络，比较交换的位置是固定的，用Math.min/Math.max实现，JIT编译成条件传送指令，没有分支预测失败
+ *    每个网络都用0-1原理穷举验证过，n <= 12和14、15、16的比较次数是已知最少的，13比已知最少的多一次
+ * 2. 16 < n <= 64：每16个一组用排序网络排好，再两两合并，合并时也不用分支；
+ *    合并需要SCRATCH_SIZE个元素的辅助空间，分治排序在入口分配一次，每个叶子都传进来，不在叶子中分配
+ * 元素在局部变量中完成比较交换，只读写数组各一次
+ */
+public class SmallSort {
+
+    /**
+     * 适用的最大区间长度，更长的区间改用内省排序
+     */
+    public static final int MAX_SIZE = 64;
+
+    /**
+     * 合并时辅助空间的长度
+     */
+    public static final int SCRATCH_SIZE = MAX_SIZE / 2;
+
+    private static final int NETWORK_SIZE = 16;
+
+    /**
+     * 长度为n的排序网络中比较器的个数，用于SortMetrics计数
+     */
+    private static final int[] COMPARATORS = {0, 0, 1, 3, 5, 9, 12, 16, 19, 25, 29, 35, 39, 46, 51, 56, 60};
+
+    public static void main(String[] args) {
+        int[] array = {38, 29, 14, 35, 22, 61, 35, 59, 36, 2, -1, -12};
+        sort(array, 0, array.length);
+        for (int a : array){
+            System.out.println(a);
+        }
+    }
+
+    /**
+     * 对区间[from, to)排序，16 < n <= 64时分配一次辅助空间，反复调用时应改用带scratch的版本
+     * @param array
+     * @param from
+     * @param to
+     */
+    public static void sort(int[] array, int from, int to){
+        sort(array, from, to, null, 0);
+    }
+
+    /**
+     * 对区间[from, to)排序，不分配内存
+     * @param array
+     * @param from
+     * @param to
+     * @param scratch 辅助空间，长度至少为SCRATCH_SIZE
+     */
+    public static void sort(int[] array, int from, int to, int[] scratch){
+        sort(array, from, to, scratch, 0);
+    }
+
+    /**
+     * 用scratch[scratchFrom, scratchFrom + (to - from))作辅助空间排序，scratch为null时分配
+     * 归并排序的叶子可以直接用乒乓数组中同一区间的位置
+     */
+    static void sort(int[] array, int from, int to, int[] scratch, int scratchFrom){
+        int n = to - from;
+        if (n <= NETWORK_SIZE){
+            network(array, from, n);
+            return;
+        }
+        if (n > MAX_SIZE){
+            Fast.introSort(array, from, to - 1);
+            return;
+        }
+        for (int i = from; i < to; i += NETWORK_SIZE){
+            network(array, i, Math.min(NETWORK_SIZE, to - i));
+        }
+        if (scratch == null){
+            scratch = new int[SCRATCH_SIZE];
+            scratchFrom = 0;
+        }
+        for (int width = NETWORK_SIZE; width < n; width *= 2){
+            for (int low = from; low + width < to; low += 2 * width){
+                merge(array, low, low + width, Math.min(low + 2 * width, to), scratch, scratchFrom);
+            }
+        }
+    }
+
+    /**
+     * 合并有序的[low, mid)和[mid, high)，左半边先复制到buffer[offset...]中
+     */
+    private static void merge(int[] array, int low, int mid, int high, int[] buffer, int offset){
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(1);
+        }
+        if (array[mid - 1] <= array[mid]){
+            return;
+        }
+        int leftLen = mid - low;
+        System.arraycopy(array, low, buffer, offset, leftLen);
+        int i = offset, j = mid, k = low;
+        int leftEnd = offset + leftLen;
+        while (i < leftEnd && j < high){
+            int x = buffer[i], y = array[j];
+            int right = y < x ? 1 : 0;
+            array[k++] = Math.min(x, y);
+            j += right;
+            i += 1 - right;
+        }
+        if (SortMetrics.ENABLED){
+            SortMetrics.compared(k - low);
+            SortMetrics.moved(leftLen + k - low + leftEnd - i);
+        }
+        //右半边剩下的已经在原位
+        System.arraycopy(buffer, i, array, k, leftEnd - i);
+    }
+
+    /**
+     * 用排序网络对array[from, from + n)排序，n <= 16
+     */
+    static void network(int[] array, int from, int n){
+        if (SortMetrics.ENABLED){
+            //比较器个数固定；元素读入局部变量排好后各写回一次
+            SortMetrics.compared(COMPARATORS[n]);
+            SortMetrics.moved(n);
+        }
+        switch (n){
+            case 2:
+                sort2(array, from);
+                break;
+            case 3:
+                sort3(array, from);
+                break;
+            case 4:
+                sort4(array, from);
+                break;
+            case 5:
+                sort5(array, from);
+                break;
+            case 6:
+                sort6(array, from);
+                break;
+            case 7:
+                sort7(array, from);
+                break;
+            case 8:
+                sort8(array, from);
+                break;
+            case 9:
+                sort9(array, from);
+                break;
+            case 10:
+                sort10(array, from);
+                break;
+            case 11:
+                sort11(array, from);
+                break;
+            case 12:
+                sort12(array, from);
+                break;
+            case 13:
+                sort13(array, from);
+                break;
+            case 14:
+                sort14(array, from);
+                break;
+            case 15:
+                sort15(array, from);
+                break;
+            case 16:
+                sort16(array, from);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void sort2(int[] array, int i){
+        int a0 = array[i], a1 = array[i + 1];
+        int t;
+        t = Math.min(a0, a1); a1 = Math.max(a0, a1); a0 = t;
+        array[i] = a0;
+        array[i + 1] = a1;
+    }
+
+    private static void sort3(int[] array, int i){
+        int a0 = array[i], a1 = array[i + 1], a2 = array[i + 2];
+        int t;
+        t = Math.min(a0, a2); a2 = Math.max(a0, a2); a0 = t;
+        t = Math.min(a0, a1); a1 = Math.max(a0, a1); a0 = t;
+        t = Math.min(a1, a2); a2 = Math.max(a1, a2); a1 = t;
+        array[i] = a0;
+        array[i + 1] = a1;
+        array[i + 2] = a2;
+    }
+
+    private static void sort4(int[] array, int i){
+        int a0 = array[i], a1 = array[i + 1], a2 = array[i + 2], a3 = array[i + 3];
+        int t;
+        t = Math.min(a0, a2); a2 = Math.max(a0, a2); a0 = t;
+        t = Math.min(a1, a3); a3 = Math.max(a1, a3); a1 = t;
+        t = Math.min(a0, a1); a1 = Math.max(a0, a1); a0 = t;
+        t = Math.min(a2, a3); a3 = Math.max(a2, a3); a2 = t;
+        t = Math.min(a1, a2); a2 = Math.max(a1, a2); a1 = t;
+        array[i] = a0;
+        array[i + 1] = a1;
+        array[i + 2] = a2;
+        array[i + 3] = a3;
+    }
+
+    private static void sort5(int[] array, int i){
+        int a0 = array[i], a1 = array[i + 1], a2 = array[i + 2], a3 = array[i + 3];
+        int a4 = array[i + 4];
+        int t;
+        t = Math.min(a0, a3); a3 = Math.max(a0, a3); a0 = t;
+        t = Math.min(a1, a4); a4 = Math.max(a1, a4); a1 = t;
+        t = Math.min(a0, a2); a2 = Math.max(a0, a2); a0 = t;
+        t = Math.min(a1, a3); a3 = Math.max(a1, a3); a1 = t;
+        t = Math.min(a0, a1); a1 = Math.max(a0, a1); a0 = t;
+        t = Math.min(a2, a4); a4 = Math.max(a2, a4); a2 = t;
+        t = Math.min(a1, a2); a2 = Math.max(a1, a2); a1 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a2, a3); a3 = Math.max(a2, a3); a2 = t;
+        array[i] = a0;
+        array[i + 1] = a1;
+        array[i + 2] = a2;
+        array[i + 3] = a3;
+        array[i + 4] = a4;
+    }
+
+    private static void sort6(int[] array, int i){
+        int a0 = array[i], a1 = array[i + 1], a2 = array[i + 2], a3 = array[i + 3];
+        int a4 = array[i + 4], a5 = array[i + 5];
+        int t;
+        t = Math.min(a0, a5); a5 = Math.max(a0, a5); a0 = t;
+        t = Math.min(a1, a3); a3 = Math.max(a1, a3); a1 = t;
+        t = Math.min(a2, a4); a4 = Math.max(a2, a4); a2 = t;
+        t = Math.min(a1, a2); a2 = Math.max(a1, a2); a1 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a0, a3); a3 = Math.max(a0, a3); a0 = t;
+        t = Math.min(a2, a5); a5 = Math.max(a2, a5); a2 = t;
+        t = Math.min(a0, a1); a1 = Math.max(a0, a1); a0 = t;
+        t = Math.min(a2, a3); a3 = Math.max(a2, a3); a2 = t;
+        t = Math.min(a4, a5); a5 = Math.max(a4, a5); a4 = t;
+        t = Math.min(a1, a2); a2 = Math.max(a1, a2); a1 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        array[i] = a0;
+        array[i + 1] = a1;
+        array[i + 2] = a2;
+        array[i + 3] = a3;
+        array[i + 4] = a4;
+        array[i + 5] = a5;
+    }
+
+    private static void sort7(int[] array, int i){
+        int a0 = array[i], a1 = array[i + 1], a2 = array[i + 2], a3 = array[i + 3];
+        int a4 = array[i + 4], a5 = array[i + 5], a6 = array[i + 6];
+        int t;
+        t = Math.min(a0, a6); a6 = Math.max(a0, a6); a0 = t;
+        t = Math.min(a2, a3); a3 = Math.max(a2, a3); a2 = t;
+        t = Math.min(a4, a5); a5 = Math.max(a4, a5); a4 = t;
+        t = Math.min(a0, a2); a2 = Math.max(a0, a2); a0 = t;
+        t = Math.min(a1, a4); a4 = Math.max(a1, a4); a1 = t;
+        t = Math.min(a3, a6); a6 = Math.max(a3, a6); a3 = t;
+        t = Math.min(a0, a1); a1 = Math.max(a0, a1); a0 = t;
+        t = Math.min(a2, a5); a5 = Math.max(a2, a5); a2 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a1, a2); a2 = Math.max(a1, a2); a1 = t;
+        t = Math.min(a4, a6); a6 = Math.max(a4, a6); a4 = t;
+        t = Math.min(a2, a3); a3 = Math.max(a2, a3); a2 = t;
+        t = Math.min(a4, a5); a5 = Math.max(a4, a5); a4 = t;
+        t = Math.min(a1, a2); a2 = Math.max(a1, a2); a1 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a5, a6); a6 = Math.max(a5, a6); a5 = t;
+        array[i] = a0;
+        array[i + 1] = a1;
+        array[i + 2] = a2;
+        array[i + 3] = a3;
+        array[i + 4] = a4;
+        array[i + 5] = a5;
+        array[i + 6] = a6;
+    }
+
+    private static void sort8(int[] array, int i){
+        int a0 = array[i], a1 = array[i + 1], a2 = array[i + 2], a3 = array[i + 3];
+        int a4 = array[i + 4], a5 = array[i + 5], a6 = array[i + 6], a7 = array[i + 7];
+        int t;
+        t = Math.min(a0, a2); a2 = Math.max(a0, a2); a0 = t;
+        t = Math.min(a1, a3); a3 = Math.max(a1, a3); a1 = t;
+        t = Math.min(a4, a6); a6 = Math.max(a4, a6); a4 = t;
+        t = Math.min(a5, a7); a7 = Math.max(a5, a7); a5 = t;
+        t = Math.min(a0, a4); a4 = Math.max(a0, a4); a0 = t;
+        t = Math.min(a1, a5); a5 = Math.max(a1, a5); a1 = t;
+        t = Math.min(a2, a6); a6 = Math.max(a2, a6); a2 = t;
+        t = Math.min(a3, a7); a7 = Math.max(a3, a7); a3 = t;
+        t = Math.min(a0, a1); a1 = Math.max(a0, a1); a0 = t;
+        t = Math.min(a2, a3); a3 = Math.max(a2, a3); a2 = t;
+        t = Math.min(a4, a5); a5 = Math.max(a4, a5); a4 = t;
+        t = Math.min(a6, a7); a7 = Math.max(a6, a7); a6 = t;
+        t = Math.min(a2, a4); a4 = Math.max(a2, a4); a2 = t;
+        t = Math.min(a3, a5); a5 = Math.max(a3, a5); a3 = t;
+        t = Math.min(a1, a4); a4 = Math.max(a1, a4); a1 = t;
+        t = Math.min(a3, a6); a6 = Math.max(a3, a6); a3 = t;
+        t = Math.min(a1, a2); a2 = Math.max(a1, a2); a1 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a5, a6); a6 = Math.max(a5, a6); a5 = t;
+        array[i] = a0;
+        array[i + 1] = a1;
+        array[i + 2] = a2;
+        array[i + 3] = a3;
+        array[i + 4] = a4;
+        array[i + 5] = a5;
+        array[i + 6] = a6;
+        array[i + 7] = a7;
+    }
+
+    private static void sort9(int[] array, int i){
+        int a0 = array[i], a1 = array[i + 1], a2 = array[i + 2], a3 = array[i + 3];
+        int a4 = array[i + 4], a5 = array[i + 5], a6 = array[i + 6], a7 = array[i + 7];
+        int a8 = array[i + 8];
+        int t;
+        t = Math.min(a0, a3); a3 = Math.max(a0, a3); a0 = t;
+        t = Math.min(a1, a7); a7 = Math.max(a1, a7); a1 = t;
+        t = Math.min(a2, a5); a5 = Math.max(a2, a5); a2 = t;
+        t = Math.min(a4, a8); a8 = Math.max(a4, a8); a4 = t;
+        t = Math.min(a0, a7); a7 = Math.max(a0, a7); a0 = t;
+        t = Math.min(a2, a4); a4 = Math.max(a2, a4); a2 = t;
+        t = Math.min(a3, a8); a8 = Math.max(a3, a8); a3 = t;
+        t = Math.min(a5, a6); a6 = Math.max(a5, a6); a5 = t;
+        t = Math.min(a0, a2); a2 = Math.max(a0, a2); a0 = t;
+        t = Math.min(a1, a3); a3 = Math.max(a1, a3); a1 = t;
+        t = Math.min(a4, a5); a5 = Math.max(a4, a5); a4 = t;
+        t = Math.min(a7, a8); a8 = Math.max(a7, a8); a7 = t;
+        t = Math.min(a1, a4); a4 = Math.max(a1, a4); a1 = t;
+        t = Math.min(a3, a6); a6 = Math.max(a3, a6); a3 = t;
+        t = Math.min(a5, a7); a7 = Math.max(a5, a7); a5 = t;
+        t = Math.min(a0, a1); a1 = Math.max(a0, a1); a0 = t;
+        t = Math.min(a2, a4); a4 = Math.max(a2, a4); a2 = t;
+        t = Math.min(a3, a5); a5 = Math.max(a3, a5); a3 = t;
+        t = Math.min(a6, a8); a8 = Math.max(a6, a8); a6 = t;
+        t = Math.min(a2, a3); a3 = Math.max(a2, a3); a2 = t;
+        t = Math.min(a4, a5); a5 = Math.max(a4, a5); a4 = t;
+        t = Math.min(a6, a7); a7 = Math.max(a6, a7); a6 = t;
+        t = Math.min(a1, a2); a2 = Math.max(a1, a2); a1 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a5, a6); a6 = Math.max(a5, a6); a5 = t;
+        array[i] = a0;
+        array[i + 1] = a1;
+        array[i + 2] = a2;
+        array[i + 3] = a3;
+        array[i + 4] = a4;
+        array[i + 5] = a5;
+        array[i + 6] = a6;
+        array[i + 7] = a7;
+        array[i + 8] = a8;
+    }
+
+    private static void sort10(int[] array, int i){
+        int a0 = array[i], a1 = array[i + 1], a2 = array[i + 2], a3 = array[i + 3];
+        int a4 = array[i + 4], a5 = array[i + 5], a6 = array[i + 6], a7 = array[i + 7];
+        int a8 = array[i + 8], a9 = array[i + 9];
+        int t;
+        t = Math.min(a0, a8); a8 = Math.max(a0, a8); a0 = t;
+        t = Math.min(a1, a9); a9 = Math.max(a1, a9); a1 = t;
+        t = Math.min(a2, a7); a7 = Math.max(a2, a7); a2 = t;
+        t = Math.min(a3, a5); a5 = Math.max(a3, a5); a3 = t;
+        t = Math.min(a4, a6); a6 = Math.max(a4, a6); a4 = t;
+        t = Math.min(a0, a2); a2 = Math.max(a0, a2); a0 = t;
+        t = Math.min(a1, a4); a4 = Math.max(a1, a4); a1 = t;
+        t = Math.min(a5, a8); a8 = Math.max(a5, a8); a5 = t;
+        t = Math.min(a7, a9); a9 = Math.max(a7, a9); a7 = t;
+        t = Math.min(a0, a3); a3 = Math.max(a0, a3); a0 = t;
+        t = Math.min(a2, a4); a4 = Math.max(a2, a4); a2 = t;
+        t = Math.min(a5, a7); a7 = Math.max(a5, a7); a5 = t;
+        t = Math.min(a6, a9); a9 = Math.max(a6, a9); a6 = t;
+        t = Math.min(a0, a1); a1 = Math.max(a0, a1); a0 = t;
+        t = Math.min(a3, a6); a6 = Math.max(a3, a6); a3 = t;
+        t = Math.min(a8, a9); a9 = Math.max(a8, a9); a8 = t;
+        t = Math.min(a1, a5); a5 = Math.max(a1, a5); a1 = t;
+        t = Math.min(a2, a3); a3 = Math.max(a2, a3); a2 = t;
+        t = Math.min(a4, a8); a8 = Math.max(a4, a8); a4 = t;
+        t = Math.min(a6, a7); a7 = Math.max(a6, a7); a6 = t;
+        t = Math.min(a1, a2); a2 = Math.max(a1, a2); a1 = t;
+        t = Math.min(a3, a5); a5 = Math.max(a3, a5); a3 = t;
+        t = Math.min(a4, a6); a6 = Math.max(a4, a6); a4 = t;
+        t = Math.min(a7, a8); a8 = Math.max(a7, a8); a7 = t;
+        t = Math.min(a2, a3); a3 = Math.max(a2, a3); a2 = t;
+        t = Math.min(a4, a5); a5 = Math.max(a4, a5); a4 = t;
+        t = Math.min(a6, a7); a7 = Math.max(a6, a7); a6 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a5, a6); a6 = Math.max(a5, a6); a5 = t;
+        array[i] = a0;
+        array[i + 1] = a1;
+        array[i + 2] = a2;
+        array[i + 3] = a3;
+        array[i + 4] = a4;
+        array[i + 5] = a5;
+        array[i + 6] = a6;
+        array[i + 7] = a7;
+        array[i + 8] = a8;
+        array[i + 9] = a9;
+    }
+
+    private static void sort11(int[] array, int i){
+        int a0 = array[i], a1 = array[i + 1], a2 = array[i + 2], a3 = array[i + 3];
+        int a4 = array[i + 4], a5 = array[i + 5], a6 = array[i + 6], a7 = array[i + 7];
+        int a8 = array[i + 8], a9 = array[i + 9], a10 = array[i + 10];
+        int t;
+        t = Math.min(a0, a8); a8 = Math.max(a0, a8); a0 = t;
+        t = Math.min(a1, a7); a7 = Math.max(a1, a7); a1 = t;
+        t = Math.min(a2, a6); a6 = Math.max(a2, a6); a2 = t;
+        t = Math.min(a4, a10); a10 = Math.max(a4, a10); a4 = t;
+        t = Math.min(a5, a9); a9 = Math.max(a5, a9); a5 = t;
+        t = Math.min(a0, a1); a1 = Math.max(a0, a1); a0 = t;
+        t = Math.min(a2, a5); a5 = Math.max(a2, a5); a2 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a6, a9); a9 = Math.max(a6, a9); a6 = t;
+        t = Math.min(a7, a8); a8 = Math.max(a7, a8); a7 = t;
+        t = Math.min(a0, a2); a2 = Math.max(a0, a2); a0 = t;
+        t = Math.min(a1, a6); a6 = Math.max(a1, a6); a1 = t;
+        t = Math.min(a5, a10); a10 = Math.max(a5, a10); a5 = t;
+        t = Math.min(a0, a3); a3 = Math.max(a0, a3); a0 = t;
+        t = Math.min(a1, a2); a2 = Math.max(a1, a2); a1 = t;
+        t = Math.min(a4, a6); a6 = Math.max(a4, a6); a4 = t;
+        t = Math.min(a5, a7); a7 = Math.max(a5, a7); a5 = t;
+        t = Math.min(a9, a10); a10 = Math.max(a9, a10); a9 = t;
+        t = Math.min(a1, a4); a4 = Math.max(a1, a4); a1 = t;
+        t = Math.min(a3, a5); a5 = Math.max(a3, a5); a3 = t;
+        t = Math.min(a6, a8); a8 = Math.max(a6, a8); a6 = t;
+        t = Math.min(a7, a10); a10 = Math.max(a7, a10); a7 = t;
+        t = Math.min(a1, a3); a3 = Math.max(a1, a3); a1 = t;
+        t = Math.min(a2, a5); a5 = Math.max(a2, a5); a2 = t;
+        t = Math.min(a6, a9); a9 = Math.max(a6, a9); a6 = t;
+        t = Math.min(a8, a10); a10 = Math.max(a8, a10); a8 = t;
+        t = Math.min(a2, a3); a3 = Math.max(a2, a3); a2 = t;
+        t = Math.min(a4, a5); a5 = Math.max(a4, a5); a4 = t;
+        t = Math.min(a6, a7); a7 = Math.max(a6, a7); a6 = t;
+        t = Math.min(a8, a9); a9 = Math.max(a8, a9); a8 = t;
+        t = Math.min(a4, a6); a6 = Math.max(a4, a6); a4 = t;
+        t = Math.min(a5, a7); a7 = Math.max(a5, a7); a5 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a5, a6); a6 = Math.max(a5, a6); a5 = t;
+        t = Math.min(a7, a8); a8 = Math.max(a7, a8); a7 = t;
+        array[i] = a0;
+        array[i + 1] = a1;
+        array[i + 2] = a2;
+        array[i + 3] = a3;
+        array[i + 4] = a4;
+        array[i + 5] = a5;
+        array[i + 6] = a6;
+        array[i + 7] = a7;
+        array[i + 8] = a8;
+        array[i + 9] = a9;
+        array[i + 10] = a10;
+    }
+
+    private static void sort12(int[] array, int i){
+        int a0 = array[i], a1 = array[i + 1], a2 = array[i + 2], a3 = array[i + 3];
+        int a4 = array[i + 4], a5 = array[i + 5], a6 = array[i + 6], a7 = array[i + 7];
+        int a8 = array[i + 8], a9 = array[i + 9], a10 = array[i + 10], a11 = array[i + 11];
+        int t;
+        t = Math.min(a0, a8); a8 = Math.max(a0, a8); a0 = t;
+        t = Math.min(a1, a7); a7 = Math.max(a1, a7); a1 = t;
+        t = Math.min(a2, a6); a6 = Math.max(a2, a6); a2 = t;
+        t = Math.min(a3, a11); a11 = Math.max(a3, a11); a3 = t;
+        t = Math.min(a4, a10); a10 = Math.max(a4, a10); a4 = t;
+        t = Math.min(a5, a9); a9 = Math.max(a5, a9); a5 = t;
+        t = Math.min(a0, a1); a1 = Math.max(a0, a1); a0 = t;
+        t = Math.min(a2, a5); a5 = Math.max(a2, a5); a2 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a6, a9); a9 = Math.max(a6, a9); a6 = t;
+        t = Math.min(a7, a8); a8 = Math.max(a7, a8); a7 = t;
+        t = Math.min(a10, a11); a11 = Math.max(a10, a11); a10 = t;
+        t = Math.min(a0, a2); a2 = Math.max(a0, a2); a0 = t;
+        t = Math.min(a1, a6); a6 = Math.max(a1, a6); a1 = t;
+        t = Math.min(a5, a10); a10 = Math.max(a5, a10); a5 = t;
+        t = Math.min(a9, a11); a11 = Math.max(a9, a11); a9 = t;
+        t = Math.min(a0, a3); a3 = Math.max(a0, a3); a0 = t;
+        t = Math.min(a1, a2); a2 = Math.max(a1, a2); a1 = t;
+        t = Math.min(a4, a6); a6 = Math.max(a4, a6); a4 = t;
+        t = Math.min(a5, a7); a7 = Math.max(a5, a7); a5 = t;
+        t = Math.min(a8, a11); a11 = Math.max(a8, a11); a8 = t;
+        t = Math.min(a9, a10); a10 = Math.max(a9, a10); a9 = t;
+        t = Math.min(a1, a4); a4 = Math.max(a1, a4); a1 = t;
+        t = Math.min(a3, a5); a5 = Math.max(a3, a5); a3 = t;
+        t = Math.min(a6, a8); a8 = Math.max(a6, a8); a6 = t;
+        t = Math.min(a7, a10); a10 = Math.max(a7, a10); a7 = t;
+        t = Math.min(a1, a3); a3 = Math.max(a1, a3); a1 = t;
+        t = Math.min(a2, a5); a5 = Math.max(a2, a5); a2 = t;
+        t = Math.min(a6, a9); a9 = Math.max(a6, a9); a6 = t;
+        t = Math.min(a8, a10); a10 = Math.max(a8, a10); a8 = t;
+        t = Math.min(a2, a3); a3 = Math.max(a2, a3); a2 = t;
+        t = Math.min(a4, a5); a5 = Math.max(a4, a5); a4 = t;
+        t = Math.min(a6, a7); a7 = Math.max(a6, a7); a6 = t;
+        t = Math.min(a8, a9); a9 = Math.max(a8, a9); a8 = t;
+        t = Math.min(a4, a6); a6 = Math.max(a4, a6); a4 = t;
+        t = Math.min(a5, a7); a7 = Math.max(a5, a7); a5 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a5, a6); a6 = Math.max(a5, a6); a5 = t;
+        t = Math.min(a7, a8); a8 = Math.max(a7, a8); a7 = t;
+        array[i] = a0;
+        array[i + 1] = a1;
+        array[i + 2] = a2;
+        array[i + 3] = a3;
+        array[i + 4] = a4;
+        array[i + 5] = a5;
+        array[i + 6] = a6;
+        array[i + 7] = a7;
+        array[i + 8] = a8;
+        array[i + 9] = a9;
+        array[i + 10] = a10;
+        array[i + 11] = a11;
+    }
+
+    private static void sort13(int[] array, int i){
+        int a0 = array[i], a1 = array[i + 1], a2 = array[i + 2], a3 = array[i + 3];
+        int a4 = array[i + 4], a5 = array[i + 5], a6 = array[i + 6], a7 = array[i + 7];
+        int a8 = array[i + 8], a9 = array[i + 9], a10 = array[i + 10], a11 = array[i + 11];
+        int a12 = array[i + 12];
+        int t;
+        t = Math.min(a1, a12); a12 = Math.max(a1, a12); a1 = t;
+        t = Math.min(a4, a8); a8 = Math.max(a4, a8); a4 = t;
+        t = Math.min(a5, a6); a6 = Math.max(a5, a6); a5 = t;
+        t = Math.min(a7, a11); a11 = Math.max(a7, a11); a7 = t;
+        t = Math.min(a9, a10); a10 = Math.max(a9, a10); a9 = t;
+        t = Math.min(a0, a5); a5 = Math.max(a0, a5); a0 = t;
+        t = Math.min(a1, a7); a7 = Math.max(a1, a7); a1 = t;
+        t = Math.min(a2, a9); a9 = Math.max(a2, a9); a2 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a11, a12); a12 = Math.max(a11, a12); a11 = t;
+        t = Math.min(a0, a1); a1 = Math.max(a0, a1); a0 = t;
+        t = Math.min(a2, a3); a3 = Math.max(a2, a3); a2 = t;
+        t = Math.min(a4, a5); a5 = Math.max(a4, a5); a4 = t;
+        t = Math.min(a6, a8); a8 = Math.max(a6, a8); a6 = t;
+        t = Math.min(a7, a9); a9 = Math.max(a7, a9); a7 = t;
+        t = Math.min(a10, a11); a11 = Math.max(a10, a11); a10 = t;
+        t = Math.min(a0, a2); a2 = Math.max(a0, a2); a0 = t;
+        t = Math.min(a1, a3); a3 = Math.max(a1, a3); a1 = t;
+        t = Math.min(a4, a10); a10 = Math.max(a4, a10); a4 = t;
+        t = Math.min(a5, a11); a11 = Math.max(a5, a11); a5 = t;
+        t = Math.min(a6, a7); a7 = Math.max(a6, a7); a6 = t;
+        t = Math.min(a8, a9); a9 = Math.max(a8, a9); a8 = t;
+        t = Math.min(a1, a2); a2 = Math.max(a1, a2); a1 = t;
+        t = Math.min(a3, a12); a12 = Math.max(a3, a12); a3 = t;
+        t = Math.min(a4, a6); a6 = Math.max(a4, a6); a4 = t;
+        t = Math.min(a5, a7); a7 = Math.max(a5, a7); a5 = t;
+        t = Math.min(a8, a10); a10 = Math.max(a8, a10); a8 = t;
+        t = Math.min(a9, a11); a11 = Math.max(a9, a11); a9 = t;
+        t = Math.min(a1, a4); a4 = Math.max(a1, a4); a1 = t;
+        t = Math.min(a2, a6); a6 = Math.max(a2, a6); a2 = t;
+        t = Math.min(a5, a8); a8 = Math.max(a5, a8); a5 = t;
+        t = Math.min(a7, a10); a10 = Math.max(a7, a10); a7 = t;
+        t = Math.min(a2, a4); a4 = Math.max(a2, a4); a2 = t;
+        t = Math.min(a3, a6); a6 = Math.max(a3, a6); a3 = t;
+        t = Math.min(a9, a12); a12 = Math.max(a9, a12); a9 = t;
+        t = Math.min(a3, a5); a5 = Math.max(a3, a5); a3 = t;
+        t = Math.min(a6, a8); a8 = Math.max(a6, a8); a6 = t;
+        t = Math.min(a7, a9); a9 = Math.max(a7, a9); a7 = t;
+        t = Math.min(a10, a12); a12 = Math.max(a10, a12); a10 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a5, a6); a6 = Math.max(a5, a6); a5 = t;
+        t = Math.min(a7, a8); a8 = Math.max(a7, a8); a7 = t;
+        t = Math.min(a9, a10); a10 = Math.max(a9, a10); a9 = t;
+        t = Math.min(a11, a12); a12 = Math.max(a11, a12); a11 = t;
+        t = Math.min(a6, a7); a7 = Math.max(a6, a7); a6 = t;
+        t = Math.min(a8, a9); a9 = Math.max(a8, a9); a8 = t;
+        array[i] = a0;
+        array[i + 1] = a1;
+        array[i + 2] = a2;
+        array[i + 3] = a3;
+        array[i + 4] = a4;
+        array[i + 5] = a5;
+        array[i + 6] = a6;
+        array[i + 7] = a7;
+        array[i + 8] = a8;
+        array[i + 9] = a9;
+        array[i + 10] = a10;
+        array[i + 11] = a11;
+        array[i + 12] = a12;
+    }
+
+    private static void sort14(int[] array, int i){
+        int a0 = array[i], a1 = array[i + 1], a2 = array[i + 2], a3 = array[i + 3];
+        int a4 = array[i + 4], a5 = array[i + 5], a6 = array[i + 6], a7 = array[i + 7];
+        int a8 = array[i + 8], a9 = array[i + 9], a10 = array[i + 10], a11 = array[i + 11];
+        int a12 = array[i + 12], a13 = array[i + 13];
+        int t;
+        t = Math.min(a0, a13); a13 = Math.max(a0, a13); a0 = t;
+        t = Math.min(a1, a12); a12 = Math.max(a1, a12); a1 = t;
+        t = Math.min(a4, a8); a8 = Math.max(a4, a8); a4 = t;
+        t = Math.min(a5, a6); a6 = Math.max(a5, a6); a5 = t;
+        t = Math.min(a7, a11); a11 = Math.max(a7, a11); a7 = t;
+        t = Math.min(a9, a10); a10 = Math.max(a9, a10); a9 = t;
+        t = Math.min(a0, a5); a5 = Math.max(a0, a5); a0 = t;
+        t = Math.min(a1, a7); a7 = Math.max(a1, a7); a1 = t;
+        t = Math.min(a2, a9); a9 = Math.max(a2, a9); a2 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a6, a13); a13 = Math.max(a6, a13); a6 = t;
+        t = Math.min(a11, a12); a12 = Math.max(a11, a12); a11 = t;
+        t = Math.min(a0, a1); a1 = Math.max(a0, a1); a0 = t;
+        t = Math.min(a2, a3); a3 = Math.max(a2, a3); a2 = t;
+        t = Math.min(a4, a5); a5 = Math.max(a4, a5); a4 = t;
+        t = Math.min(a6, a8); a8 = Math.max(a6, a8); a6 = t;
+        t = Math.min(a7, a9); a9 = Math.max(a7, a9); a7 = t;
+        t = Math.min(a10, a11); a11 = Math.max(a10, a11); a10 = t;
+        t = Math.min(a12, a13); a13 = Math.max(a12, a13); a12 = t;
+        t = Math.min(a0, a2); a2 = Math.max(a0, a2); a0 = t;
+        t = Math.min(a1, a3); a3 = Math.max(a1, a3); a1 = t;
+        t = Math.min(a4, a10); a10 = Math.max(a4, a10); a4 = t;
+        t = Math.min(a5, a11); a11 = Math.max(a5, a11); a5 = t;
+        t = Math.min(a6, a7); a7 = Math.max(a6, a7); a6 = t;
+        t = Math.min(a8, a9); a9 = Math.max(a8, a9); a8 = t;
+        t = Math.min(a1, a2); a2 = Math.max(a1, a2); a1 = t;
+        t = Math.min(a3, a12); a12 = Math.max(a3, a12); a3 = t;
+        t = Math.min(a4, a6); a6 = Math.max(a4, a6); a4 = t;
+        t = Math.min(a5, a7); a7 = Math.max(a5, a7); a5 = t;
+        t = Math.min(a8, a10); a10 = Math.max(a8, a10); a8 = t;
+        t = Math.min(a9, a11); a11 = Math.max(a9, a11); a9 = t;
+        t = Math.min(a1, a4); a4 = Math.max(a1, a4); a1 = t;
+        t = Math.min(a2, a6); a6 = Math.max(a2, a6); a2 = t;
+        t = Math.min(a5, a8); a8 = Math.max(a5, a8); a5 = t;
+        t = Math.min(a7, a10); a10 = Math.max(a7, a10); a7 = t;
+        t = Math.min(a9, a13); a13 = Math.max(a9, a13); a9 = t;
+        t = Math.min(a2, a4); a4 = Math.max(a2, a4); a2 = t;
+        t = Math.min(a3, a6); a6 = Math.max(a3, a6); a3 = t;
+        t = Math.min(a9, a12); a12 = Math.max(a9, a12); a9 = t;
+        t = Math.min(a11, a13); a13 = Math.max(a11, a13); a11 = t;
+        t = Math.min(a3, a5); a5 = Math.max(a3, a5); a3 = t;
+        t = Math.min(a6, a8); a8 = Math.max(a6, a8); a6 = t;
+        t = Math.min(a7, a9); a9 = Math.max(a7, a9); a7 = t;
+        t = Math.min(a10, a12); a12 = Math.max(a10, a12); a10 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a5, a6); a6 = Math.max(a5, a6); a5 = t;
+        t = Math.min(a7, a8); a8 = Math.max(a7, a8); a7 = t;
+        t = Math.min(a9, a10); a10 = Math.max(a9, a10); a9 = t;
+        t = Math.min(a11, a12); a12 = Math.max(a11, a12); a11 = t;
+        t = Math.min(a6, a7); a7 = Math.max(a6, a7); a6 = t;
+        t = Math.min(a8, a9); a9 = Math.max(a8, a9); a8 = t;
+        array[i] = a0;
+        array[i + 1] = a1;
+        array[i + 2] = a2;
+        array[i + 3] = a3;
+        array[i + 4] = a4;
+        array[i + 5] = a5;
+        array[i + 6] = a6;
+        array[i + 7] = a7;
+        array[i + 8] = a8;
+        array[i + 9] = a9;
+        array[i + 10] = a10;
+        array[i + 11] = a11;
+        array[i + 12] = a12;
+        array[i + 13] = a13;
+    }
+
+    private static void sort15(int[] array, int i){
+        int a0 = array[i], a1 = array[i + 1], a2 = array[i + 2], a3 = array[i + 3];
+        int a4 = array[i + 4], a5 = array[i + 5], a6 = array[i + 6], a7 = array[i + 7];
+        int a8 = array[i + 8], a9 = array[i + 9], a10 = array[i + 10], a11 = array[i + 11];
+        int a12 = array[i + 12], a13 = array[i + 13], a14 = array[i + 14];
+        int t;
+        t = Math.min(a0, a13); a13 = Math.max(a0, a13); a0 = t;
+        t = Math.min(a1, a12); a12 = Math.max(a1, a12); a1 = t;
+        t = Math.min(a3, a14); a14 = Math.max(a3, a14); a3 = t;
+        t = Math.min(a4, a8); a8 = Math.max(a4, a8); a4 = t;
+        t = Math.min(a5, a6); a6 = Math.max(a5, a6); a5 = t;
+        t = Math.min(a7, a11); a11 = Math.max(a7, a11); a7 = t;
+        t = Math.min(a9, a10); a10 = Math.max(a9, a10); a9 = t;
+        t = Math.min(a0, a5); a5 = Math.max(a0, a5); a0 = t;
+        t = Math.min(a1, a7); a7 = Math.max(a1, a7); a1 = t;
+        t = Math.min(a2, a9); a9 = Math.max(a2, a9); a2 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a6, a13); a13 = Math.max(a6, a13); a6 = t;
+        t = Math.min(a8, a14); a14 = Math.max(a8, a14); a8 = t;
+        t = Math.min(a11, a12); a12 = Math.max(a11, a12); a11 = t;
+        t = Math.min(a0, a1); a1 = Math.max(a0, a1); a0 = t;
+        t = Math.min(a2, a3); a3 = Math.max(a2, a3); a2 = t;
+        t = Math.min(a4, a5); a5 = Math.max(a4, a5); a4 = t;
+        t = Math.min(a6, a8); a8 = Math.max(a6, a8); a6 = t;
+        t = Math.min(a7, a9); a9 = Math.max(a7, a9); a7 = t;
+        t = Math.min(a10, a11); a11 = Math.max(a10, a11); a10 = t;
+        t = Math.min(a12, a13); a13 = Math.max(a12, a13); a12 = t;
+        t = Math.min(a0, a2); a2 = Math.max(a0, a2); a0 = t;
+        t = Math.min(a1, a3); a3 = Math.max(a1, a3); a1 = t;
+        t = Math.min(a4, a10); a10 = Math.max(a4, a10); a4 = t;
+        t = Math.min(a5, a11); a11 = Math.max(a5, a11); a5 = t;
+        t = Math.min(a6, a7); a7 = Math.max(a6, a7); a6 = t;
+        t = Math.min(a8, a9); a9 = Math.max(a8, a9); a8 = t;
+        t = Math.min(a12, a14); a14 = Math.max(a12, a14); a12 = t;
+        t = Math.min(a1, a2); a2 = Math.max(a1, a2); a1 = t;
+        t = Math.min(a3, a12); a12 = Math.max(a3, a12); a3 = t;
+        t = Math.min(a4, a6); a6 = Math.max(a4, a6); a4 = t;
+        t = Math.min(a5, a7); a7 = Math.max(a5, a7); a5 = t;
+        t = Math.min(a8, a10); a10 = Math.max(a8, a10); a8 = t;
+        t = Math.min(a9, a11); a11 = Math.max(a9, a11); a9 = t;
+        t = Math.min(a13, a14); a14 = Math.max(a13, a14); a13 = t;
+        t = Math.min(a1, a4); a4 = Math.max(a1, a4); a1 = t;
+        t = Math.min(a2, a6); a6 = Math.max(a2, a6); a2 = t;
+        t = Math.min(a5, a8); a8 = Math.max(a5, a8); a5 = t;
+        t = Math.min(a7, a10); a10 = Math.max(a7, a10); a7 = t;
+        t = Math.min(a9, a13); a13 = Math.max(a9, a13); a9 = t;
+        t = Math.min(a11, a14); a14 = Math.max(a11, a14); a11 = t;
+        t = Math.min(a2, a4); a4 = Math.max(a2, a4); a2 = t;
+        t = Math.min(a3, a6); a6 = Math.max(a3, a6); a3 = t;
+        t = Math.min(a9, a12); a12 = Math.max(a9, a12); a9 = t;
+        t = Math.min(a11, a13); a13 = Math.max(a11, a13); a11 = t;
+        t = Math.min(a3, a5); a5 = Math.max(a3, a5); a3 = t;
+        t = Math.min(a6, a8); a8 = Math.max(a6, a8); a6 = t;
+        t = Math.min(a7, a9); a9 = Math.max(a7, a9); a7 = t;
+        t = Math.min(a10, a12); a12 = Math.max(a10, a12); a10 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a5, a6); a6 = Math.max(a5, a6); a5 = t;
+        t = Math.min(a7, a8); a8 = Math.max(a7, a8); a7 = t;
+        t = Math.min(a9, a10); a10 = Math.max(a9, a10); a9 = t;
+        t = Math.min(a11, a12); a12 = Math.max(a11, a12); a11 = t;
+        t = Math.min(a6, a7); a7 = Math.max(a6, a7); a6 = t;
+        t = Math.min(a8, a9); a9 = Math.max(a8, a9); a8 = t;
+        array[i] = a0;
+        array[i + 1] = a1;
+        array[i + 2] = a2;
+        array[i + 3] = a3;
+        array[i + 4] = a4;
+        array[i + 5] = a5;
+        array[i + 6] = a6;
+        array[i + 7] = a7;
+        array[i + 8] = a8;
+        array[i + 9] = a9;
+        array[i + 10] = a10;
+        array[i + 11] = a11;
+        array[i + 12] = a12;
+        array[i + 13] = a13;
+        array[i + 14] = a14;
+    }
+
+    private static void sort16(int[] array, int i){
+        int a0 = array[i], a1 = array[i + 1], a2 = array[i + 2], a3 = array[i + 3];
+        int a4 = array[i + 4], a5 = array[i + 5], a6 = array[i + 6], a7 = array[i + 7];
+        int a8 = array[i + 8], a9 = array[i + 9], a10 = array[i + 10], a11 = array[i + 11];
+        int a12 = array[i + 12], a13 = array[i + 13], a14 = array[i + 14], a15 = array[i + 15];
+        int t;
+        t = Math.min(a0, a13); a13 = Math.max(a0, a13); a0 = t;
+        t = Math.min(a1, a12); a12 = Math.max(a1, a12); a1 = t;
+        t = Math.min(a2, a15); a15 = Math.max(a2, a15); a2 = t;
+        t = Math.min(a3, a14); a14 = Math.max(a3, a14); a3 = t;
+        t = Math.min(a4, a8); a8 = Math.max(a4, a8); a4 = t;
+        t = Math.min(a5, a6); a6 = Math.max(a5, a6); a5 = t;
+        t = Math.min(a7, a11); a11 = Math.max(a7, a11); a7 = t;
+        t = Math.min(a9, a10); a10 = Math.max(a9, a10); a9 = t;
+        t = Math.min(a0, a5); a5 = Math.max(a0, a5); a0 = t;
+        t = Math.min(a1, a7); a7 = Math.max(a1, a7); a1 = t;
+        t = Math.min(a2, a9); a9 = Math.max(a2, a9); a2 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a6, a13); a13 = Math.max(a6, a13); a6 = t;
+        t = Math.min(a8, a14); a14 = Math.max(a8, a14); a8 = t;
+        t = Math.min(a10, a15); a15 = Math.max(a10, a15); a10 = t;
+        t = Math.min(a11, a12); a12 = Math.max(a11, a12); a11 = t;
+        t = Math.min(a0, a1); a1 = Math.max(a0, a1); a0 = t;
+        t = Math.min(a2, a3); a3 = Math.max(a2, a3); a2 = t;
+        t = Math.min(a4, a5); a5 = Math.max(a4, a5); a4 = t;
+        t = Math.min(a6, a8); a8 = Math.max(a6, a8); a6 = t;
+        t = Math.min(a7, a9); a9 = Math.max(a7, a9); a7 = t;
+        t = Math.min(a10, a11); a11 = Math.max(a10, a11); a10 = t;
+        t = Math.min(a12, a13); a13 = Math.max(a12, a13); a12 = t;
+        t = Math.min(a14, a15); a15 = Math.max(a14, a15); a14 = t;
+        t = Math.min(a0, a2); a2 = Math.max(a0, a2); a0 = t;
+        t = Math.min(a1, a3); a3 = Math.max(a1, a3); a1 = t;
+        t = Math.min(a4, a10); a10 = Math.max(a4, a10); a4 = t;
+        t = Math.min(a5, a11); a11 = Math.max(a5, a11); a5 = t;
+        t = Math.min(a6, a7); a7 = Math.max(a6, a7); a6 = t;
+        t = Math.min(a8, a9); a9 = Math.max(a8, a9); a8 = t;
+        t = Math.min(a12, a14); a14 = Math.max(a12, a14); a12 = t;
+        t = Math.min(a13, a15); a15 = Math.max(a13, a15); a13 = t;
+        t = Math.min(a1, a2); a2 = Math.max(a1, a2); a1 = t;
+        t = Math.min(a3, a12); a12 = Math.max(a3, a12); a3 = t;
+        t = Math.min(a4, a6); a6 = Math.max(a4, a6); a4 = t;
+        t = Math.min(a5, a7); a7 = Math.max(a5, a7); a5 = t;
+        t = Math.min(a8, a10); a10 = Math.max(a8, a10); a8 = t;
+        t = Math.min(a9, a11); a11 = Math.max(a9, a11); a9 = t;
+        t = Math.min(a13, a14); a14 = Math.max(a13, a14); a13 = t;
+        t = Math.min(a1, a4); a4 = Math.max(a1, a4); a1 = t;
+        t = Math.min(a2, a6); a6 = Math.max(a2, a6); a2 = t;
+        t = Math.min(a5, a8); a8 = Math.max(a5, a8); a5 = t;
+        t = Math.min(a7, a10); a10 = Math.max(a7, a10); a7 = t;
+        t = Math.min(a9, a13); a13 = Math.max(a9, a13); a9 = t;
+        t = Math.min(a11, a14); a14 = Math.max(a11, a14); a11 = t;
+        t = Math.min(a2, a4); a4 = Math.max(a2, a4); a2 = t;
+        t = Math.min(a3, a6); a6 = Math.max(a3, a6); a3 = t;
+        t = Math.min(a9, a12); a12 = Math.max(a9, a12); a9 = t;
+        t = Math.min(a11, a13); a13 = Math.max(a11, a13); a11 = t;
+        t = Math.min(a3, a5); a5 = Math.max(a3, a5); a3 = t;
+        t = Math.min(a6, a8); a8 = Math.max(a6, a8); a6 = t;
+        t = Math.min(a7, a9); a9 = Math.max(a7, a9); a7 = t;
+        t = Math.min(a10, a12); a12 = Math.max(a10, a12); a10 = t;
+        t = Math.min(a3, a4); a4 = Math.max(a3, a4); a3 = t;
+        t = Math.min(a5, a6); a6 = Math.max(a5, a6); a5 = t;
+        t = Math.min(a7, a8); a8 = Math.max(a7, a8); a7 = t;
+        t = Math.min(a9, a10); a10 = Math.max(a9, a10); a9 = t;
+        t = Math.min(a11, a12); a12 = Math.max(a11, a12); a11 = t;
+        t = Math.min(a6, a7); a7 = Math.max(a6, a7); a6 = t;
+        t = Math.min(a8, a9); a9 = Math.max(a8, a9); a8 = t;
+        array[i] = a0;
+        array[i + 1] = a1;
+        array[i + 2] = a2;
+        array[i + 3] = a3;
+        array[i + 4] = a4;
+        array[i + 5] = a5;
+        array[i + 6] = a6;
+        array[i + 7] = a7;
+        array[i + 8] = a8;
+        array[i + 9] = a9;
+        array[i + 10] = a10;
+        array[i + 11] = a11;
+        array[i + 12] = a12;
+        array[i + 13] = a13;
+        array[i + 14] = a14;
+        array[i + 15] = a15;
+    }
+
+}
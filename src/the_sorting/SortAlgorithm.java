@@ -0,0 +1,258 @@
+package the_sorting;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * the_sorting中已有的排序算法，统一适配为Sorter
+ * 原本只能对整个数组排序或者返回新数组的算法，在子区间上排序时先复制出来再写回
+ */
+public enum SortAlgorithm implements Sorter {
+
+    BUBBLING {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            Bubbling.setBubbling(array, from, to);
+        }
+    },
+
+    CHOOSE {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            Choose.setSelect(array, from, to);
+        }
+    },
+
+    INSERT {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            Insert.insertionSort(array, from, to - 1);
+        }
+    },
+
+    HILL {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            Hill.shellsort(array, from, to);
+        }
+    },
+
+    FAST {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            Fast.QuickSort(array, from, to - 1);
+        }
+    },
+
+    INTRO {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            Fast.introSort(array, from, to - 1);
+        }
+
+        @Override
+        public void sort(long[] array, int from, int to) {
+            LongSorts.introSort(array, from, to);
+        }
+
+        @Override
+        public void sort(double[] array, int from, int to) {
+            DoubleSorts.introSort(array, from, to);
+        }
+    },
+
+    BLOCK {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            Fast.blockQuickSort(array, from, to - 1);
+        }
+    },
+
+    THREE_WAY {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            Fast.threeWaySort(array, from, to - 1);
+        }
+    },
+
+    HEAP {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            if (to - from > 1){
+                Heap.heapSort(array, from, to - 1);
+            }
+        }
+
+        @Override
+        public void sort(long[] array, int from, int to) {
+            LongSorts.heapSort(array, from, to);
+        }
+
+        @Override
+        public void sort(double[] array, int from, int to) {
+            DoubleSorts.heapSort(array, from, to);
+        }
+    },
+
+    MERGE {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            Merge.MergeSort(array, from, to - 1);
+        }
+
+        @Override
+        public void sort(long[] array, int from, int to) {
+            LongSorts.mergeSort(array, from, to);
+        }
+
+        @Override
+        public void sort(double[] array, int from, int to) {
+            DoubleSorts.mergeSort(array, from, to);
+        }
+    },
+
+    NATURAL_MERGE {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            Merge.naturalSort(array, from, to);
+        }
+    },
+
+    IN_PLACE_MERGE {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            Merge.inPlaceSort(array, from, to, (int) Math.sqrt(to - from));
+        }
+    },
+
+    PARALLEL_MERGE {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            if (from == 0 && to == array.length){
+                Merge.parallelSort(array);
+            } else {
+                int[] copy = Arrays.copyOfRange(array, from, to);
+                Merge.parallelSort(copy);
+                System.arraycopy(copy, 0, array, from, copy.length);
+            }
+        }
+
+        @Override
+        public boolean parallel() {
+            return true;
+        }
+    },
+
+    COUNT {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            if (from == 0 && to == array.length){
+                Count.countSort(array, array);
+            } else {
+                int[] copy = Arrays.copyOfRange(array, from, to);
+                Count.countSort(copy, copy);
+                System.arraycopy(copy, 0, array, from, copy.length);
+            }
+        }
+
+        @Override
+        public boolean parallel() {
+            return true;
+        }
+    },
+
+    RADIX {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            Radix.lsdSort(array, from, to, null);
+        }
+
+        @Override
+        public void sort(long[] array, int from, int to) {
+            Radix.lsdSort(array, from, to, null);
+        }
+
+        @Override
+        public void sort(double[] array, int from, int to) {
+            DoubleSorts.radixSort(array, from, to);
+        }
+    },
+
+    PARALLEL_RADIX {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            if (from == 0 && to == array.length){
+                Holder.PARALLEL_RADIX.sort(array);
+            } else {
+                int[] copy = Arrays.copyOfRange(array, from, to);
+                Holder.PARALLEL_RADIX.sort(copy);
+                System.arraycopy(copy, 0, array, from, copy.length);
+            }
+        }
+
+        @Override
+        public void sort(long[] array, int from, int to) {
+            if (from == 0 && to == array.length){
+                Holder.PARALLEL_RADIX.sort(array);
+            } else {
+                long[] copy = Arrays.copyOfRange(array, from, to);
+                Holder.PARALLEL_RADIX.sort(copy);
+                System.arraycopy(copy, 0, array, from, copy.length);
+            }
+        }
+
+        @Override
+        public boolean parallel() {
+            return true;
+        }
+    },
+
+    SAMPLE {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            SampleSort.parallelSort(array, from, to, ForkJoinPool.commonPool());
+        }
+
+        @Override
+        public boolean parallel() {
+            return true;
+        }
+    },
+
+    BARREL {
+        @Override
+        public void sort(int[] array, int from, int to) {
+            if (from == 0 && to == array.length){
+                Barrel.parallelBucketSort(array);
+            } else {
+                int[] copy = Arrays.copyOfRange(array, from, to);
+                Barrel.parallelBucketSort(copy);
+                System.arraycopy(copy, 0, array, from, copy.length);
+            }
+        }
+
+        @Override
+        public void sort(double[] array, int from, int to) {
+            if (from == 0 && to == array.length){
+                Barrel.parallelBucketSort(array);
+            } else {
+                double[] copy = Arrays.copyOfRange(array, from, to);
+                Barrel.parallelBucketSort(copy);
+                System.arraycopy(copy, 0, array, from, copy.length);
+            }
+        }
+
+        @Override
+        public boolean parallel() {
+            return true;
+        }
+    };
+
+    /**
+     * 延迟创建共享的并行基数排序实例
+     */
+    private static class Holder {
+        static final ParallelRadix PARALLEL_RADIX = new ParallelRadix();
+    }
+
+}
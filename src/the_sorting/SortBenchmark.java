@@ -0,0 +1,175 @@
+package the_sorting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 排序基准测试
+ * 对the_sorting中每个算法以及Arrays.sort、Arrays.parallelSort，在不同规模和分布下测量：
+ * ops/s、每个元素的耗时、每次排序分配的字节数（统计所有线程，相当于gc profiler的alloc rate），以及相对Arrays.sort的倍数
+ *
+ * 用法：java the_sorting.SortBenchmark [-sizes 16,1024,1000000] [-dist RANDOM,SORTED] [-algo RADIX,INTRO] [-time 500] [-iterations 5]
+ * 10^8规模需要足够的堆（-Xmx4g以上）；O(n^2)的算法只在规模不超过65536时测量
+ */
+public class SortBenchmark {
+
+    private static final int QUADRATIC_LIMIT = 1 << 16;
+
+    private static final int[] DEFAULT_SIZES = {16, 256, 4096, 65536, 1 << 20, 10_000_000};
+
+    /**
+     * 防止JIT把排序结果当作无用代码消除
+     */
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        int[] sizes = DEFAULT_SIZES;
+        List<Distribution> distributions = Arrays.asList(Distribution.values());
+        List<String> algorithms = null;
+        long millis = 500;
+        int iterations = 5;
+        for (int i = 0; i + 1 < args.length; i += 2){
+            String value = args[i + 1];
+            switch (args[i]){
+                case "-sizes":
+                    sizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "-dist":
+                    distributions = new ArrayList<>();
+                    for (String d : value.split(",")){
+                        distributions.add(Distribution.valueOf(d));
+                    }
+                    break;
+                case "-algo":
+                    algorithms = Arrays.asList(value.split(","));
+                    break;
+                case "-time":
+                    millis = Long.parseLong(value);
+                    break;
+                case "-iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        Map<String, Sorter> sorters = sorters();
+        if (algorithms != null){
+            sorters.keySet().retainAll(algorithms);
+        }
+        System.out.printf("%-16s %-14s %12s %16s %12s %14s %10s%n",
+                "algorithm", "distribution", "size", "ops/s", "ns/element", "B/op", "vs JDK");
+        for (Distribution distribution : distributions){
+            for (int size : sizes){
+                int[] data = distribution.generate(size, 42);
+                Result baseline = null;
+                for (Map.Entry<String, Sorter> entry : sorters.entrySet()){
+                    if (size > QUADRATIC_LIMIT && isQuadratic(entry.getKey())){
+                        continue;
+                    }
+                    Result result = measure(entry.getValue(), data, millis, iterations);
+                    if (entry.getKey().equals("JDK_SORT")){
+                        baseline = result;
+                    }
+                    print(entry.getKey(), distribution, size, result, baseline);
+                }
+            }
+        }
+    }
+
+    /**
+     * 参与测试的算法，JDK_SORT排在最前面作为基准
+     */
+    static Map<String, Sorter> sorters(){
+        Map<String, Sorter> sorters = new LinkedHashMap<>();
+        sorters.put("JDK_SORT", new Sorter() {
+            @Override
+            public String name() {
+                return "JDK_SORT";
+            }
+
+            @Override
+            public void sort(int[] array, int from, int to) {
+                Arrays.sort(array, from, to);
+            }
+        });
+        sorters.put("JDK_PARALLEL", new Sorter() {
+            @Override
+            public String name() {
+                return "JDK_PARALLEL";
+            }
+
+            @Override
+            public void sort(int[] array, int from, int to) {
+                Arrays.parallelSort(array, from, to);
+            }
+        });
+        for (SortAlgorithm algorithm : SortAlgorithm.values()){
+            sorters.put(algorithm.name(), algorithm);
+        }
+        sorters.put("ADAPTIVE", Sorter.adaptive());
+        return sorters;
+    }
+
+    private static boolean isQuadratic(String name){
+        return name.equals("BUBBLING") || name.equals("CHOOSE") || name.equals("INSERT");
+    }
+
+    /**
+     * 预热一轮后测量iterations轮，每轮至少运行millis毫秒，取最好的一轮
+     */
+    static Result measure(Sorter sorter, int[] data, long millis, int iterations){
+        int[] work = new int[data.length];
+        Result best = null;
+        try {
+            for (int it = -1; it < iterations; it++){
+                long ops = 0, nanos = 0;
+                SortMetrics.AllocationMark mark = new SortMetrics.AllocationMark(sorter.parallel());
+                long deadline = System.nanoTime() + millis * 1_000_000L;
+                do {
+                    System.arraycopy(data, 0, work, 0, data.length);
+                    long start = System.nanoTime();
+                    sorter.sort(work);
+                    nanos += System.nanoTime() - start;
+                    ops++;
+                } while (System.nanoTime() < deadline);
+                long bytes = mark.allocated();
+                sink += work.length > 0 ? work[0] + work[work.length - 1] : 0;
+                Result result = new Result(ops * 1e9 / nanos, (double) nanos / ops / Math.max(1, data.length), bytes / ops);
+                if (it >= 0 && (best == null || result.opsPerSecond > best.opsPerSecond)){
+                    best = result;
+                }
+            }
+        } catch (StackOverflowError e){
+            return null;
+        }
+        return best;
+    }
+
+    private static void print(String name, Distribution distribution, int size, Result result, Result baseline){
+        if (result == null){
+            System.out.printf("%-16s %-14s %12d %16s%n", name, distribution, size, "StackOverflowError");
+            return;
+        }
+        String ratio = baseline == null ? "-" : String.format("%.2fx", result.opsPerSecond / baseline.opsPerSecond);
+        System.out.printf("%-16s %-14s %12d %16.1f %12.2f %14d %10s%n",
+                name, distribution, size, result.opsPerSecond, result.nanosPerElement, result.bytesPerOp, ratio);
+    }
+
+    static class Result {
+        final double opsPerSecond;
+        final double nanosPerElement;
+        final long bytesPerOp;
+
+        Result(double opsPerSecond, double nanosPerElement, long bytesPerOp){
+            this.opsPerSecond = opsPerSecond;
+            this.nanosPerElement = nanosPerElement;
+            this.bytesPerOp = bytesPerOp;
+        }
+    }
+
+}
@@ -0,0 +1,405 @@
+package the_sorting;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * 排序的度量：比较次数、元素移动次数、最大递归深度、各阶段耗时，以及经InstrumentedSorter统计的排序次数、耗时和分配的字节数
+ * 1. 比较、移动、递归深度和阶段耗时埋在各个算法内部，由编译期常量ENABLED控制：
+ *    为false时这些代码都写在if (SortMetrics.ENABLED)中，javac编译时直接删除，不产生任何开销；
+ *    需要统计时把ENABLED改为true重新编译；计数都在实际比较和移动元素的地方累加，不是按区间长度估算的值
+ * 2. 排序次数、耗时和分配的字节数由InstrumentedSorter在每次排序前后测量，与ENABLED无关，只对包装过的排序生效；
+ *    分配的字节数只算调用排序的线程，并行的排序再加上ForkJoinWorkerThread，见AllocationMark
+ * 3. snapshot()取得当前数据的快照，registerMBean()把数据发布到JMX（the_sorting:type=SortMetrics）
+ * 计数在多个线程之间累加，并行排序中各线程的数据都会计入；递归深度按线程分别计算，取最大值
+ */
+public final class SortMetrics {
+
+    /**
+     * 是否统计算法内部的比较、移动、递归深度和阶段耗时
+     */
+    public static final boolean ENABLED = false;
+
+    public static final String OBJECT_NAME = "the_sorting:type=SortMetrics";
+
+    /**
+     * 计时的阶段
+     */
+    public enum Phase {
+        /**
+         * 快速排序和采样排序的划分
+         */
+        PARTITION,
+        /**
+         * 归并排序的合并
+         */
+        MERGE,
+        /**
+         * 基数排序、计数排序、桶排序的分配
+         */
+        SCATTER
+    }
+
+    private static final LongAdder COMPARISONS = new LongAdder();
+    private static final LongAdder MOVES = new LongAdder();
+    private static final LongAccumulator MAX_DEPTH = new LongAccumulator(Long::max, 0);
+    private static final LongAdder[] PHASE_NANOS = new LongAdder[Phase.values().length];
+    private static final LongAdder SORTS = new LongAdder();
+    private static final LongAdder WALL_NANOS = new LongAdder();
+    private static final LongAdder ALLOCATED_BYTES = new LongAdder();
+
+    /**
+     * 当前线程的递归深度
+     */
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private static boolean registered;
+
+    static {
+        for (int i = 0; i < PHASE_NANOS.length; i++){
+            PHASE_NANOS[i] = new LongAdder();
+        }
+    }
+
+    private SortMetrics(){
+    }
+
+    public static void main(String[] args) throws Exception {
+        registerMBean();
+        Sorter sorter = Sorter.instrumented(SortAlgorithm.INTRO);
+        sorter.sort(Distribution.RANDOM.generate(1 << 20, 42));
+        System.out.println(snapshot());
+        if (!ENABLED){
+            System.out.println("comparisons/moves/phases are compiled out, set SortMetrics.ENABLED = true to collect them");
+        }
+    }
+
+    static void compared(long n){
+        COMPARISONS.add(n);
+    }
+
+    static void moved(long n){
+        MOVES.add(n);
+    }
+
+    /**
+     * 进入一层递归，与exit成对调用
+     */
+    static void enter(){
+        int depth = ++DEPTH.get()[0];
+        MAX_DEPTH.accumulate(depth);
+    }
+
+    static void exit(){
+        DEPTH.get()[0]--;
+    }
+
+    /**
+     * 直接记录递归深度，用于在不同线程中执行的递归任务
+     */
+    static void depth(int depth){
+        MAX_DEPTH.accumulate(depth);
+    }
+
+    /**
+     * 记录从startNanos（System.nanoTime()）到现在的阶段耗时
+     */
+    static void phase(Phase phase, long startNanos){
+        PHASE_NANOS[phase.ordinal()].add(System.nanoTime() - startNanos);
+    }
+
+    static void sorted(long wallNanos, long allocatedBytes){
+        SORTS.increment();
+        WALL_NANOS.add(wallNanos);
+        ALLOCATED_BYTES.add(allocatedBytes);
+    }
+
+    /**
+     * 当前数据的快照
+     * @return
+     */
+    public static Snapshot snapshot(){
+        return new Snapshot(COMPARISONS.sum(), MOVES.sum(), MAX_DEPTH.get(),
+                PHASE_NANOS[Phase.PARTITION.ordinal()].sum(), PHASE_NANOS[Phase.MERGE.ordinal()].sum(),
+                PHASE_NANOS[Phase.SCATTER.ordinal()].sum(), SORTS.sum(), WALL_NANOS.sum(), ALLOCATED_BYTES.sum());
+    }
+
+    /**
+     * 清零所有数据
+     */
+    public static void reset(){
+        COMPARISONS.reset();
+        MOVES.reset();
+        MAX_DEPTH.reset();
+        for (LongAdder nanos : PHASE_NANOS){
+            nanos.reset();
+        }
+        SORTS.reset();
+        WALL_NANOS.reset();
+        ALLOCATED_BYTES.reset();
+    }
+
+    /**
+     * 注册到平台MBeanServer，重复调用只注册一次
+     */
+    public static synchronized void registerMBean(){
+        if (registered){
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)){
+                server.registerMBean(new Bean(), name);
+            }
+            registered = true;
+        } catch (JMException e){
+            throw new IllegalStateException("cannot register " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * 排序开始时各个线程已经分配的字节数，排序结束后用allocated()求差
+     * 1. 只统计调用排序的线程，parallel为true时再加上所有ForkJoinWorkerThread，不统计其他线程
+     * 2. 排序期间新建的工作线程从0开始算；排序期间退出的工作线程拿不到结束时的数据，这部分不计入，结果可能偏少
+     * 3. 同一个ForkJoinPool中同时运行的其他任务分配的字节数也会计入
+     * JVM不支持按线程统计分配时结果总是0
+     */
+    static final class AllocationMark {
+        private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+        private final boolean parallel;
+        private final long[] ids;
+        private final long[] bytes;
+
+        AllocationMark(boolean parallel){
+            this.parallel = parallel;
+            this.ids = THREADS == null ? new long[0] : threadIds(parallel);
+            this.bytes = THREADS == null ? new long[0] : THREADS.getThreadAllocatedBytes(ids);
+        }
+
+        /**
+         * 从创建这个对象到现在，这些线程分配的字节数
+         */
+        long allocated(){
+            if (THREADS == null){
+                return 0;
+            }
+            long total = 0;
+            long[] now = THREADS.getThreadAllocatedBytes(ids);
+            for (int i = 0; i < ids.length; i++){
+                //已经退出的线程返回-1
+                if (now[i] >= 0 && bytes[i] >= 0){
+                    total += now[i] - bytes[i];
+                }
+            }
+            if (parallel){
+                long[] current = threadIds(true);
+                long[] added = new long[current.length];
+                int count = 0;
+                for (long id : current){
+                    if (indexOf(ids, id) < 0){
+                        added[count++] = id;
+                    }
+                }
+                if (count > 0){
+                    for (long b : THREADS.getThreadAllocatedBytes(Arrays.copyOf(added, count))){
+                        if (b > 0){
+                            total += b;
+                        }
+                    }
+                }
+            }
+            return total;
+        }
+
+        private static com.sun.management.ThreadMXBean threads(){
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (!(bean instanceof com.sun.management.ThreadMXBean)){
+                return null;
+            }
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            return threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled() ? threads : null;
+        }
+
+        /**
+         * 当前线程的id，withWorkers为true时后面接着所有存活的ForkJoinWorkerThread
+         */
+        private static long[] threadIds(boolean withWorkers){
+            long self = Thread.currentThread().getId();
+            if (!withWorkers){
+                return new long[]{self};
+            }
+            ThreadGroup root = Thread.currentThread().getThreadGroup();
+            while (root.getParent() != null){
+                root = root.getParent();
+            }
+            Thread[] threads;
+            int n;
+            do {
+                threads = new Thread[root.activeCount() * 2 + 8];
+                n = root.enumerate(threads, true);
+            } while (n == threads.length);
+            long[] ids = new long[n + 1];
+            int count = 0;
+            ids[count++] = self;
+            for (int i = 0; i < n; i++){
+                if (threads[i] instanceof ForkJoinWorkerThread && threads[i] != Thread.currentThread()){
+                    ids[count++] = threads[i].getId();
+                }
+            }
+            return Arrays.copyOf(ids, count);
+        }
+
+        private static int indexOf(long[] ids, long id){
+            for (int i = 0; i < ids.length; i++){
+                if (ids[i] == id){
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * 不可变的快照
+     */
+    public static final class Snapshot {
+        private final long comparisons;
+        private final long moves;
+        private final long maxRecursionDepth;
+        private final long partitionNanos;
+        private final long mergeNanos;
+        private final long scatterNanos;
+        private final long sorts;
+        private final long wallNanos;
+        private final long allocatedBytes;
+
+        Snapshot(long comparisons, long moves, long maxRecursionDepth, long partitionNanos, long mergeNanos,
+                 long scatterNanos, long sorts, long wallNanos, long allocatedBytes){
+            this.comparisons = comparisons;
+            this.moves = moves;
+            this.maxRecursionDepth = maxRecursionDepth;
+            this.partitionNanos = partitionNanos;
+            this.mergeNanos = mergeNanos;
+            this.scatterNanos = scatterNanos;
+            this.sorts = sorts;
+            this.wallNanos = wallNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public long getComparisons() {
+            return comparisons;
+        }
+
+        public long getMoves() {
+            return moves;
+        }
+
+        public long getMaxRecursionDepth() {
+            return maxRecursionDepth;
+        }
+
+        public long getPartitionNanos() {
+            return partitionNanos;
+        }
+
+        public long getMergeNanos() {
+            return mergeNanos;
+        }
+
+        public long getScatterNanos() {
+            return scatterNanos;
+        }
+
+        public long getSorts() {
+            return sorts;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "SortMetrics{enabled=" + ENABLED
+                    + ", comparisons=" + comparisons
+                    + ", moves=" + moves
+                    + ", maxRecursionDepth=" + maxRecursionDepth
+                    + ", partitionNanos=" + partitionNanos
+                    + ", mergeNanos=" + mergeNanos
+                    + ", scatterNanos=" + scatterNanos
+                    + ", sorts=" + sorts
+                    + ", wallNanos=" + wallNanos
+                    + ", allocatedBytes=" + allocatedBytes + "}";
+        }
+    }
+
+    private static final class Bean implements SortMetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return ENABLED;
+        }
+
+        @Override
+        public long getComparisons() {
+            return COMPARISONS.sum();
+        }
+
+        @Override
+        public long getMoves() {
+            return MOVES.sum();
+        }
+
+        @Override
+        public long getMaxRecursionDepth() {
+            return MAX_DEPTH.get();
+        }
+
+        @Override
+        public long getPartitionNanos() {
+            return PHASE_NANOS[Phase.PARTITION.ordinal()].sum();
+        }
+
+        @Override
+        public long getMergeNanos() {
+            return PHASE_NANOS[Phase.MERGE.ordinal()].sum();
+        }
+
+        @Override
+        public long getScatterNanos() {
+            return PHASE_NANOS[Phase.SCATTER.ordinal()].sum();
+        }
+
+        @Override
+        public long getSorts() {
+            return SORTS.sum();
+        }
+
+        @Override
+        public long getWallNanos() {
+            return WALL_NANOS.sum();
+        }
+
+        @Override
+        public long getAllocatedBytes() {
+            return ALLOCATED_BYTES.sum();
+        }
+
+        @Override
+        public void reset() {
+            SortMetrics.reset();
+        }
+    }
+
+}
@@ -0,0 +1,36 @@
+package the_sorting;
+
+/**
+ * SortMetrics在JMX中的接口，注册名为the_sorting:type=SortMetrics
+ */
+public interface SortMetricsMXBean {
+
+    /**
+     * 算法内部的计数是否编译进来
+     */
+    boolean isEnabled();
+
+    long getComparisons();
+
+    long getMoves();
+
+    long getMaxRecursionDepth();
+
+    long getPartitionNanos();
+
+    long getMergeNanos();
+
+    long getScatterNanos();
+
+    long getSorts();
+
+    long getWallNanos();
+
+    /**
+     * 调用排序的线程分配的字节数，并行的排序包括ForkJoinPool的工作线程，见SortMetrics.AllocationMark
+     */
+    long getAllocatedBytes();
+
+    void reset();
+
+}
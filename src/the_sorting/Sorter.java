@@ -0,0 +1,63 @@
+package the_sorting;
+
+/**
+ * 统一的排序接口
+ * 所有方法都在原数组上对区间[from, to)排序，不输出结果
+ * 只支持int[]的算法对long[]和double[]抛出UnsupportedOperationException
+ */
+public interface Sorter {
+
+    /**
+     * 算法名称
+     * @return
+     */
+    String name();
+
+    void sort(int[] array, int from, int to);
+
+    /**
+     * 是否把工作交给ForkJoinPool中的线程，InstrumentedSorter据此决定是否统计工作线程分配的字节数
+     * @return
+     */
+    default boolean parallel(){
+        return false;
+    }
+
+    default void sort(long[] array, int from, int to){
+        throw new UnsupportedOperationException(name() + " does not support long[]");
+    }
+
+    default void sort(double[] array, int from, int to){
+        throw new UnsupportedOperationException(name() + " does not support double[]");
+    }
+
+    default void sort(int[] array){
+        sort(array, 0, array.length);
+    }
+
+    default void sort(long[] array){
+        sort(array, 0, array.length);
+    }
+
+    default void sort(double[] array){
+        sort(array, 0, array.length);
+    }
+
+    /**
+     * 根据输入的特征自动选择算法
+     * @return
+     */
+    static Sorter adaptive(){
+        return AdaptiveSorter.INSTANCE;
+    }
+
+    /**
+     * 包装sorter，统计每次排序的耗时和分配的字节数，见SortMetrics
+     * @param sorter
+     * @return
+     */
+    static InstrumentedSorter instrumented(Sorter sorter){
+        return sorter instanceof InstrumentedSorter ? (InstrumentedSorter) sorter : new InstrumentedSorter(sorter);
+    }
+
+}
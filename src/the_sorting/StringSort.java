@@ -0,0 +1,382 @@
+package the_sorting;
+
+/**
+ * 字符串排序，结果与String.compareTo的字典序相同
+ * 比较器排序每次比较都从第一个字符开始，共同前缀很长（例如URL）时同样的前缀会被反复比较，这里的算法都只看还没确定的字符：
+ * 1. msdSort：按字符的MSD基数排序，第d层按第d个字符分桶，每桶再按第d + 1个字符递归
+ *    字符0 ~ 254各占一个桶，字符串结束占一个桶，其余字符共用一个桶，这个桶用多关键字快速排序处理
+ *    所有字符串第d个字符相同时不分配，直接看下一个字符；小桶改用多关键字快速排序
+ * 2. multikeySort：多关键字快速排序（Bentley & Sedgewick），按第d个字符三路划分，等于基准的部分看下一个字符
+ * 3. lcpMergeSort：带最长公共前缀（LCP）的归并排序，合并时根据两个候选与上一个输出的LCP决定大小，
+ *    只在LCP相同时才比较字符，并且从LCP之后开始比较；排序是稳定的，同时得到相邻元素的LCP数组
+ * 字符串不能为null
+ */
+public class StringSort {
+
+    /**
+     * 桶的个数：0表示字符串结束，1 ~ 255对应字符0 ~ 254，256对应其余字符
+     */
+    private static final int R = 256;
+
+    /**
+     * 区间长度小于它时MSD改用多关键字快速排序
+     */
+    private static final int MSD_CUTOFF = 64;
+
+    /**
+     * 区间长度不超过它时改用插入排序
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    public static void main(String[] args) {
+        String[] array = {"https://example.com/b", "https://example.com/a/2", "https://example.com/a/10",
+                "https://example.com/", "https://example.org", "http://example.com", "https://example.com/a"};
+        int[] lcp = lcpMergeSort(array.clone(), 0, array.length);
+        msdSort(array, 0, array.length);
+        for (int i = 0; i < array.length; i++){
+            System.out.println(lcp[i] + "\t" + array[i]);
+        }
+    }
+
+    //================MSD基数排序=========================
+
+    /**
+     * 对区间[from, to)做MSD基数排序
+     * @param array
+     * @param from
+     * @param to
+     */
+    public static void msdSort(String[] array, int from, int to){
+        int n = to - from;
+        if (n < 2){
+            return;
+        }
+        msdSort(array, from, to, 0, new String[n], new int[n]);
+    }
+
+    /**
+     * [low, high)中的字符串前d个字符都相同
+     * aux和digits是分配用的辅助数组，只用到前high - low个位置，递归时可以共用
+     */
+    private static void msdSort(String[] array, int low, int high, int d, String[] aux, int[] digits){
+        while (true){
+            int n = high - low;
+            if (n < MSD_CUTOFF){
+                multikeySort(array, low, high, d);
+                return;
+            }
+            //每个字符串只取一次第d个字符，分配时直接用缓存的桶号
+            int[] count = new int[R + 2];
+            for (int i = low; i < high; i++){
+                int c = digit(array[i], d);
+                digits[i - low] = c;
+                count[c + 1]++;
+            }
+            int first = digits[0];
+            if (count[first + 1] == n){
+                if (first == 0){
+                    //都已经结束，全部相等
+                    return;
+                }
+                if (first == R){
+                    multikeySort(array, low, high, d);
+                    return;
+                }
+                //共同前缀，不用分配；一次求出整个区间的共同前缀长度直接跳过，不必每个字符都扫描一遍
+                d = commonPrefix(array, low, high, d + 1);
+                continue;
+            }
+            long startNanos = SortMetrics.ENABLED ? System.nanoTime() : 0;
+            for (int r = 0; r <= R; r++){
+                count[r + 1] += count[r];
+            }
+            for (int i = 0; i < n; i++){
+                aux[count[digits[i]]++] = array[low + i];
+            }
+            System.arraycopy(aux, 0, array, low, n);
+            if (SortMetrics.ENABLED){
+                SortMetrics.moved(2L * n);
+                SortMetrics.phase(SortMetrics.Phase.SCATTER, startNanos);
+            }
+
+            //分配后count[c]是第c个桶的终点；结束的字符串全部相等，不用再排
+            //最大的桶留给循环处理，其余的递归，递归深度不超过log2(n)
+            int largest = -1, largestSize = 0;
+            for (int c = 1; c <= R; c++){
+                int size = count[c] - count[c - 1];
+                if (size > largestSize){
+                    largest = c;
+                    largestSize = size;
+                }
+            }
+            for (int c = 1; c <= R; c++){
+                int start = low + count[c - 1], end = low + count[c];
+                if (c == largest || end - start < 2){
+                    continue;
+                }
+                if (c == R){
+                    multikeySort(array, start, end, d);
+                } else {
+                    if (SortMetrics.ENABLED){
+                        SortMetrics.enter();
+                    }
+                    msdSort(array, start, end, d + 1, aux, digits);
+                    if (SortMetrics.ENABLED){
+                        SortMetrics.exit();
+                    }
+                }
+            }
+            int start = low + count[largest - 1], end = low + count[largest];
+            if (largestSize < 2){
+                return;
+            }
+            if (largest == R){
+                multikeySort(array, start, end, d);
+                return;
+            }
+            low = start;
+            high = end;
+            d++;
+        }
+    }
+
+    /**
+     * [low, high)中的字符串前d个字符都相同，返回它们共同前缀的长度
+     */
+    private static int commonPrefix(String[] array, int low, int high, int d){
+        String first = array[low];
+        int h = first.length();
+        for (int i = low + 1; i < high && h > d; i++){
+            String s = array[i];
+            int m = Math.min(h, s.length());
+            int k = d;
+            while (k < m && s.charAt(k) == first.charAt(k)){
+                k++;
+            }
+            h = k;
+        }
+        return Math.max(h, d);
+    }
+
+    private static int digit(String s, int d){
+        if (d >= s.length()){
+            return 0;
+        }
+        char c = s.charAt(d);
+        return c < R - 1 ? c + 1 : R;
+    }
+
+    //================多关键字快速排序=========================
+
+    /**
+     * 对区间[from, to)做多关键字快速排序
+     * @param array
+     * @param from
+     * @param to
+     */
+    public static void multikeySort(String[] array, int from, int to){
+        multikeySort(array, from, to, 0);
+    }
+
+    /**
+     * [low, high)中的字符串前d个字符都相同，按第d个字符三路划分：
+     * 小于基准和大于基准的部分仍看第d个字符，等于基准的部分看第d + 1个字符
+     * 三部分中最大的留给循环处理，其余的递归
+     */
+    private static void multikeySort(String[] array, int low, int high, int d){
+        while (high - low > INSERTION_SORT_THRESHOLD){
+            int mid = (low + high) >>> 1;
+            int a = charAt(array[low], d), b = charAt(array[mid], d), c = charAt(array[high - 1], d);
+            //三数取中的字符串换到low
+            int m = a < b ? (b < c ? mid : (a < c ? high - 1 : low)) : (a < c ? low : (b < c ? high - 1 : mid));
+            swap(array, low, m);
+            int v = charAt(array[low], d);
+            int lt = low, gt = high - 1, i = low + 1;
+            while (i <= gt){
+                int t = charAt(array[i], d);
+                if (t < v){
+                    swap(array, lt++, i++);
+                } else if (t > v){
+                    swap(array, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            //[low, lt)小于，[lt, gt]等于，(gt, high)大于；等于的部分都已结束时全部相等
+            int less = lt - low, equal = v < 0 ? 0 : gt - lt + 1, greater = high - gt - 1;
+            if (less >= equal && less >= greater){
+                multikeySort(array, gt + 1, high, d);
+                if (equal > 1){
+                    multikeySort(array, lt, gt + 1, d + 1);
+                }
+                high = lt;
+            } else if (greater >= equal){
+                multikeySort(array, low, lt, d);
+                if (equal > 1){
+                    multikeySort(array, lt, gt + 1, d + 1);
+                }
+                low = gt + 1;
+            } else {
+                multikeySort(array, low, lt, d);
+                multikeySort(array, gt + 1, high, d);
+                low = lt;
+                high = gt + 1;
+                d++;
+            }
+        }
+        insertionSort(array, low, high, d);
+    }
+
+    private static int charAt(String s, int d){
+        return d < s.length() ? s.charAt(d) : -1;
+    }
+
+    /**
+     * 前d个字符都相同，从第d个字符开始比较
+     */
+    private static void insertionSort(String[] array, int low, int high, int d){
+        for (int index = low + 1; index < high; index++){
+            String temp = array[index];
+            int leftindex = index - 1;
+            while (leftindex >= low && less(temp, array[leftindex], d)){
+                array[leftindex + 1] = array[leftindex];
+                leftindex--;
+            }
+            array[leftindex + 1] = temp;
+        }
+    }
+
+    private static boolean less(String x, String y, int d){
+        int m = Math.min(x.length(), y.length());
+        for (int i = d; i < m; i++){
+            char a = x.charAt(i), b = y.charAt(i);
+            if (a != b){
+                return a < b;
+            }
+        }
+        return x.length() < y.length();
+    }
+
+    private static void swap(String[] array, int i, int j){
+        String temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+    }
+
+    //================LCP归并排序=========================
+
+    /**
+     * 对区间[from, to)做稳定的LCP归并排序
+     * @param array
+     * @param from
+     * @param to
+     * @return LCP数组，第i个元素是排序后array[from + i - 1]和array[from + i]的最长公共前缀长度，第0个为0
+     */
+    public static int[] lcpMergeSort(String[] array, int from, int to){
+        int n = to - from;
+        int[] lcp = new int[Math.max(n, 0)];
+        if (n < 1){
+            return lcp;
+        }
+        String[] strings = new String[n];
+        System.arraycopy(array, from, strings, 0, n);
+        lcpMergeSort(strings, lcp, 0, n, new String[n], new int[n]);
+        System.arraycopy(strings, 0, array, from, n);
+        lcp[0] = 0;
+        return lcp;
+    }
+
+    /**
+     * 把两个有序数组合并成一个，每个数组带着自己的LCP数组（第0个元素的值不使用）
+     * @param a
+     * @param lcpA
+     * @param b
+     * @param lcpB
+     * @param out 长度至少为a.length + b.length
+     * @param lcpOut 合并后的LCP数组
+     */
+    public static void lcpMerge(String[] a, int[] lcpA, String[] b, int[] lcpB, String[] out, int[] lcpOut){
+        lcpMerge(a, lcpA, 0, a.length, b, lcpB, 0, b.length, out, lcpOut, 0);
+    }
+
+    /**
+     * 合并a[aLow, aHigh)和b[bLow, bHigh)到out[pos...]，lcpA[aLow]和lcpB[bLow]不使用
+     */
+    private static void lcpMerge(String[] a, int[] lcpA, int aLow, int aHigh, String[] b, int[] lcpB, int bLow, int bHigh,
+                                 String[] out, int[] lcpOut, int pos){
+        int i = aLow, j = bLow, k = pos;
+        //h1、h2分别是a[i]、b[j]与上一个输出的LCP
+        int h1 = 0, h2 = 0;
+        while (i < aHigh && j < bHigh){
+            if (h1 > h2){
+                //a[i]与上一个输出一致的部分更长，说明a[i]更小；b[j]与a[i]的LCP仍是h2
+                lcpOut[k] = h1;
+                out[k++] = a[i++];
+                h1 = i < aHigh ? lcpA[i] : 0;
+            } else if (h1 < h2){
+                lcpOut[k] = h2;
+                out[k++] = b[j++];
+                h2 = j < bHigh ? lcpB[j] : 0;
+            } else {
+                //LCP相同，从第h1个字符开始比较，相等时a优先，保持稳定
+                String x = a[i], y = b[j];
+                int h = h1;
+                int m = Math.min(x.length(), y.length());
+                while (h < m && x.charAt(h) == y.charAt(h)){
+                    h++;
+                }
+                boolean takeB = h < m ? y.charAt(h) < x.charAt(h) : y.length() < x.length();
+                if (takeB){
+                    lcpOut[k] = h2;
+                    out[k++] = y;
+                    j++;
+                    h1 = h;
+                    h2 = j < bHigh ? lcpB[j] : 0;
+                } else {
+                    lcpOut[k] = h1;
+                    out[k++] = x;
+                    i++;
+                    h2 = h;
+                    h1 = i < aHigh ? lcpA[i] : 0;
+                }
+            }
+        }
+        for (int first = i; i < aHigh; i++){
+            lcpOut[k] = i == first ? h1 : lcpA[i];
+            out[k++] = a[i];
+        }
+        for (int first = j; j < bHigh; j++){
+            lcpOut[k] = j == first ? h2 : lcpB[j];
+            out[k++] = b[j];
+        }
+    }
+
+    /**
+     * 排序[low, high)并填好lcp[low + 1, high)，aux和lcpAux是合并用的辅助数组
+     */
+    private static void lcpMergeSort(String[] array, int[] lcp, int low, int high, String[] aux, int[] lcpAux){
+        if (high - low <= INSERTION_SORT_THRESHOLD){
+            insertionSort(array, low, high, 0);
+            for (int i = low + 1; i < high; i++){
+                lcp[i] = lcp(array[i - 1], array[i]);
+            }
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        lcpMergeSort(array, lcp, low, mid, aux, lcpAux);
+        lcpMergeSort(array, lcp, mid, high, aux, lcpAux);
+        System.arraycopy(array, low, aux, low, high - low);
+        System.arraycopy(lcp, low, lcpAux, low, high - low);
+        lcpMerge(aux, lcpAux, low, mid, aux, lcpAux, mid, high, array, lcp, low);
+    }
+
+    private static int lcp(String x, String y){
+        int m = Math.min(x.length(), y.length());
+        int h = 0;
+        while (h < m && x.charAt(h) == y.charAt(h)){
+            h++;
+        }
+        return h;
+    }
+
+}
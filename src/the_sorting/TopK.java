@@ -0,0 +1,266 @@
+package the_sorting;
+
+/**
+ * 流式的前k个/后k个收集器
+ * 只保留一个大小为k的堆，堆顶是已保留元素中最差的一个，新元素与堆顶比较一次就能决定是否丢弃，
+ * 替换堆顶后用Heap.heapAdjust向下调整。
+ * Heap.heapAdjust是大顶堆，求最小的k个直接使用；求最大的k个时存入按位取反的值（~v），
+ * 取反保持一一对应且顺序相反，不会像取负那样溢出。
+ * 每个线程可以各自收集，最后用merge合并
+ */
+public class TopK {
+
+    public static void main(String[] args) {
+        int[] array = {38, 29, 14, 35, 22, 61, 35, 59, 36, 2, -1, -12};
+        Ints top = new Ints(3, true);
+        top.offer(array);
+        for (int a : top.toSortedArray()){
+            System.out.println(a);
+        }
+    }
+
+    /**
+     * int的收集器
+     */
+    public static class Ints {
+        private final int k;
+        private final boolean largest;
+        private final int[] heap;
+        private int size;
+
+        /**
+         * @param k 保留的元素个数
+         * @param largest true保留最大的k个，false保留最小的k个
+         */
+        public Ints(int k, boolean largest){
+            if (k < 0){
+                throw new IllegalArgumentException("k must not be negative: " + k);
+            }
+            this.k = k;
+            this.largest = largest;
+            this.heap = new int[k];
+        }
+
+        public void offer(int value){
+            int e = largest ? ~value : value;
+            if (size < k){
+                heap[size++] = e;
+                if (size == k){
+                    heapify();
+                }
+            } else if (k > 0 && e < heap[0]){
+                heap[0] = e;
+                Heap.heapAdjust(heap, 0, k, 0);
+            }
+        }
+
+        public void offer(int[] values){
+            offer(values, 0, values.length);
+        }
+
+        /**
+         * 批量加入[from, to)中的元素
+         */
+        public void offer(int[] values, int from, int to){
+            int i = from;
+            while (i < to && size < k){
+                offer(values[i++]);
+            }
+            if (k == 0){
+                return;
+            }
+            int mask = largest ? -1 : 0;
+            int root = heap[0];
+            for ( ; i < to; i++){
+                int e = values[i] ^ mask;
+                if (e < root){
+                    heap[0] = e;
+                    Heap.heapAdjust(heap, 0, k, 0);
+                    root = heap[0];
+                }
+            }
+        }
+
+        /**
+         * 把另一个收集器的结果合并进来
+         */
+        public void merge(Ints other){
+            for (int i = 0; i < other.size; i++){
+                offer(other.largest ? ~other.heap[i] : other.heap[i]);
+            }
+        }
+
+        public int size(){
+            return size;
+        }
+
+        /**
+         * 按从好到差排列的结果：最大的k个为降序，最小的k个为升序
+         */
+        public int[] toSortedArray(){
+            int[] result = new int[size];
+            System.arraycopy(heap, 0, result, 0, size);
+            if (size > 1){
+                Heap.heapSort(result, 0, size - 1);
+            }
+            if (largest){
+                for (int i = 0; i < size; i++){
+                    result[i] = ~result[i];
+                }
+            }
+            return result;
+        }
+
+        private void heapify(){
+            for (int i = size / 2 - 1; i >= 0; i--){
+                Heap.heapAdjust(heap, 0, size, i);
+            }
+        }
+    }
+
+    /**
+     * long的收集器
+     */
+    public static class Longs {
+        private final int k;
+        private final boolean largest;
+        private final long[] heap;
+        private int size;
+
+        /**
+         * @param k 保留的元素个数
+         * @param largest true保留最大的k个，false保留最小的k个
+         */
+        public Longs(int k, boolean largest){
+            if (k < 0){
+                throw new IllegalArgumentException("k must not be negative: " + k);
+            }
+            this.k = k;
+            this.largest = largest;
+            this.heap = new long[k];
+        }
+
+        public void offer(long value){
+            offerEncoded(largest ? ~value : value);
+        }
+
+        public void offer(long[] values){
+            offer(values, 0, values.length);
+        }
+
+        public void offer(long[] values, int from, int to){
+            for (int i = from; i < to; i++){
+                offerEncoded(largest ? ~values[i] : values[i]);
+            }
+        }
+
+        public void merge(Longs other){
+            for (int i = 0; i < other.size; i++){
+                offer(other.largest ? ~other.heap[i] : other.heap[i]);
+            }
+        }
+
+        public int size(){
+            return size;
+        }
+
+        /**
+         * 按从好到差排列的结果：最大的k个为降序，最小的k个为升序
+         */
+        public long[] toSortedArray(){
+            long[] result = sortedEncoded();
+            if (largest){
+                for (int i = 0; i < size; i++){
+                    result[i] = ~result[i];
+                }
+            }
+            return result;
+        }
+
+        /**
+         * 堆中已经编码的值，从小到大（即从好到差）排列
+         */
+        long[] sortedEncoded(){
+            long[] result = new long[size];
+            System.arraycopy(heap, 0, result, 0, size);
+            LongSorts.introSort(result);
+            return result;
+        }
+
+        void offerEncoded(long e){
+            if (size < k){
+                heap[size++] = e;
+                if (size == k){
+                    for (int i = size / 2 - 1; i >= 0; i--){
+                        Heap.heapAdjust(heap, 0, size, i);
+                    }
+                }
+            } else if (k > 0 && e < heap[0]){
+                heap[0] = e;
+                Heap.heapAdjust(heap, 0, k, 0);
+            }
+        }
+    }
+
+    /**
+     * double的收集器，按IEEE全序比较：-0.0小于0.0，NaN最大
+     * 内部转换为按有符号比较的long键，复用Longs
+     */
+    public static class Doubles {
+        private final Longs keys;
+
+        /**
+         * @param k 保留的元素个数
+         * @param largest true保留最大的k个，false保留最小的k个
+         */
+        public Doubles(int k, boolean largest){
+            this.keys = new Longs(k, largest);
+        }
+
+        public void offer(double value){
+            keys.offer(encode(value));
+        }
+
+        public void offer(double[] values){
+            offer(values, 0, values.length);
+        }
+
+        public void offer(double[] values, int from, int to){
+            for (int i = from; i < to; i++){
+                keys.offer(encode(values[i]));
+            }
+        }
+
+        public void merge(Doubles other){
+            keys.merge(other.keys);
+        }
+
+        public int size(){
+            return keys.size();
+        }
+
+        /**
+         * 按从好到差排列的结果：最大的k个为降序，最小的k个为升序
+         */
+        public double[] toSortedArray(){
+            long[] sorted = keys.toSortedArray();
+            double[] result = new double[sorted.length];
+            for (int i = 0; i < sorted.length; i++){
+                result[i] = decode(sorted[i]);
+            }
+            return result;
+        }
+
+        private static long encode(double value){
+            return DoubleSorts.key(value) ^ Long.MIN_VALUE;
+        }
+
+        private static double decode(long key){
+            long bits = key ^ Long.MIN_VALUE;
+            //最高位为1说明原来是正数，只翻转了符号位；否则原来是负数，翻转了所有位
+            bits = bits < 0 ? bits ^ Long.MIN_VALUE : ~bits;
+            return Double.longBitsToDouble(bits);
+        }
+    }
+
+}
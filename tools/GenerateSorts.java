@@ -0,0 +1,177 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 根据tools/Sorts.java.template生成the_sorting中的LongSorts、DoubleSorts、FloatSorts、ShortSorts、CharSorts
+ * 在仓库根目录执行：
+ *     javac -encoding UTF-8 -d /tmp/gen tools/GenerateSorts.java && java -cp /tmp/gen GenerateSorts
+ * 模板语法：
+ * 1. $name$替换为当前类型的变量
+ * 2. 单独一行的#if[flag]、#else[flag]、#end[flag]按当前类型是否有flag保留其中一段，可以嵌套
+ */
+public class GenerateSorts {
+
+    private static final Path TEMPLATE = Paths.get("tools", "Sorts.java.template");
+
+    private static final Path OUTPUT = Paths.get("src", "the_sorting");
+
+    public static void main(String[] args) throws IOException {
+        List<String> template = Files.readAllLines(TEMPLATE, StandardCharsets.UTF_8);
+
+        generate(template, vars("long", "Long", "long", 8)
+                .put("example", "{38L, 29L, 14L, 35L, 22L, 61L, 35L, 59L, 36L, 2L, -1L, -12L}")
+                .put("radixDoc", "按字节的LSD基数排序，符号位翻转后共8趟")
+                .put("keyExpr", "v ^ Long.MIN_VALUE")
+                .flags("longKey"));
+
+        generate(template, vars("double", "Double", "long", 8)
+                .put("example", "{3.8, 2.9, Double.NaN, 0.0, -0.0, 6.1, 3.5, 5.9, Double.NEGATIVE_INFINITY, 0.2, -1, -1.2}")
+                .put("radixDoc", "按字节的LSD基数排序，浮点数的位模式转换为按无符号比较的整数，-0.0排在0.0前面，NaN排在最后")
+                .put("bits", "doubleToLongBits")
+                .put("rawBits", "doubleToRawLongBits")
+                .put("signShift", "63")
+                .put("KeyBox", "Long")
+                .put("negativeZero", "-0.0")
+                .flags("longKey", "floating"));
+
+        generate(template, vars("float", "Float", "int", 4)
+                .put("example", "{3.8f, 2.9f, Float.NaN, 0.0f, -0.0f, 6.1f, 3.5f, 5.9f, Float.NEGATIVE_INFINITY, 0.2f, -1f, -1.2f}")
+                .put("radixDoc", "按字节的LSD基数排序，浮点数的位模式转换为按无符号比较的整数，-0.0排在0.0前面，NaN排在最后")
+                .put("bits", "floatToIntBits")
+                .put("rawBits", "floatToRawIntBits")
+                .put("signShift", "31")
+                .put("KeyBox", "Integer")
+                .put("negativeZero", "-0.0f")
+                .flags("floating"));
+
+        generate(template, vars("short", "Short", "int", 2)
+                .put("example", "{38, 29, 14, 35, 22, 61, 35, 59, 36, 2, -1, -12}")
+                .put("radixDoc", "按字节的LSD基数排序，符号位翻转后共2趟")
+                .put("keyExpr", "(v & 0xFFFF) ^ 0x8000")
+                .put("fromKey", "(k ^ 0x8000)")
+                .put("countSortDoc", "、计数排序")
+                .flags("counting"));
+
+        generate(template, vars("char", "Char", "int", 2)
+                .put("example", "{'s', 'o', 'r', 't', 'i', 'n', 'g'}")
+                .put("radixDoc", "按字节的LSD基数排序，共2趟")
+                .put("keyExpr", "v")
+                .put("fromKey", "k")
+                .put("countSortDoc", "、计数排序")
+                .flags("counting"));
+    }
+
+    private static Spec vars(String type, String boxName, String keyType, int bytes){
+        return new Spec(boxName)
+                .put("type", type)
+                .put("Type", boxName)
+                .put("key", keyType)
+                .put("bytes", Integer.toString(bytes))
+                .put("countSortDoc", "");
+    }
+
+    private static void generate(List<String> template, Spec spec) throws IOException {
+        StringBuilder out = new StringBuilder();
+        //每一层#if是否保留，外层不保留时内层也不保留
+        Deque<Boolean> keep = new ArrayDeque<>();
+        Deque<String> open = new ArrayDeque<>();
+        boolean active = true;
+        int lineNumber = 0;
+        for (String line : template){
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.startsWith("#if[")){
+                String flag = flag(trimmed, "#if[", lineNumber);
+                keep.push(active);
+                open.push(flag);
+                active = active && spec.flags.contains(flag);
+            } else if (trimmed.startsWith("#else[")){
+                String flag = flag(trimmed, "#else[", lineNumber);
+                check(open, flag, lineNumber);
+                active = keep.peek() && !spec.flags.contains(flag);
+            } else if (trimmed.startsWith("#end[")){
+                String flag = flag(trimmed, "#end[", lineNumber);
+                check(open, flag, lineNumber);
+                open.pop();
+                active = keep.pop();
+            } else if (active){
+                out.append(substitute(line, spec.vars, lineNumber)).append('\n');
+            }
+        }
+        if (!open.isEmpty()){
+            throw new IllegalStateException("unclosed #if[" + open.peek() + "]");
+        }
+        Path target = OUTPUT.resolve(spec.name + "Sorts.java");
+        Files.write(target, out.toString().getBytes(StandardCharsets.UTF_8));
+        System.out.println("generated " + target);
+    }
+
+    private static String flag(String line, String prefix, int lineNumber){
+        int end = line.indexOf(']');
+        if (end < 0){
+            throw new IllegalStateException("line " + lineNumber + ": missing ]");
+        }
+        return line.substring(prefix.length(), end);
+    }
+
+    private static void check(Deque<String> open, String flag, int lineNumber){
+        if (open.isEmpty() || !open.peek().equals(flag)){
+            throw new IllegalStateException("line " + lineNumber + ": " + flag + " does not match #if[" + open.peek() + "]");
+        }
+    }
+
+    private static String substitute(String line, Map<String, String> vars, int lineNumber){
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        while (true){
+            int start = line.indexOf('$', i);
+            if (start < 0){
+                break;
+            }
+            int end = line.indexOf('$', start + 1);
+            if (end < 0){
+                throw new IllegalStateException("line " + lineNumber + ": unterminated $");
+            }
+            String name = line.substring(start + 1, end);
+            String value = vars.get(name);
+            if (value == null){
+                throw new IllegalStateException("line " + lineNumber + ": undefined variable $" + name + "$");
+            }
+            sb.append(line, i, start).append(value);
+            i = end + 1;
+        }
+        return sb.append(line.substring(i)).toString();
+    }
+
+    private static class Spec {
+        private final String name;
+        private final Map<String, String> vars = new LinkedHashMap<>();
+        private final Set<String> flags = new HashSet<>();
+
+        Spec(String name){
+            this.name = name;
+        }
+
+        Spec put(String key, String value){
+            vars.put(key, value);
+            return this;
+        }
+
+        Spec flags(String... names){
+            flags.addAll(Arrays.asList(names));
+            return this;
+        }
+    }
+
+}